@@ -0,0 +1,109 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+// Compares the linked RingBuffer with ArrayRingBuffer on a full buffer: appends that overwrite the oldest element,
+// and reads by absolute and relative offset. Run with -prof gc to see the linked version allocate a node per append.
+// JMH refuses benchmarks in the default package and a named package cannot import from it, so the buffers are
+// reached through static final method handles, which the JIT inlines like direct calls.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RingBufferBenchmark {
+
+    private static final int OPERATIONS = 1024;
+
+    private static final MethodHandle LINKED_NEW = constructor("RingBuffer");
+    private static final MethodHandle LINKED_APPEND = method("RingBuffer", "append", void.class, Object.class);
+    private static final MethodHandle LINKED_ABSOLUTE = method("RingBuffer", "getAbsolute", Object.class, int.class);
+    private static final MethodHandle LINKED_RELATIVE = method("RingBuffer", "getRelative", Object.class, int.class);
+    private static final MethodHandle ARRAY_NEW = constructor("ArrayRingBuffer");
+    private static final MethodHandle ARRAY_APPEND = method("ArrayRingBuffer", "append", void.class, Object.class);
+    private static final MethodHandle ARRAY_ABSOLUTE =
+            method("ArrayRingBuffer", "getAbsolute", Object.class, int.class);
+    private static final MethodHandle ARRAY_RELATIVE =
+            method("ArrayRingBuffer", "getRelative", Object.class, int.class);
+
+    @Param({"64", "1000"})
+    int capacity;
+
+    private Object linked;
+    private Object array;
+    private final Integer[] values = new Integer[OPERATIONS];
+
+    @Setup
+    public void fill() throws Throwable {
+        linked = (Object) LINKED_NEW.invokeExact(capacity);
+        array = (Object) ARRAY_NEW.invokeExact(capacity);
+        for (int i = 0; i < OPERATIONS; i++) values[i] = i;
+        for (int i = 0; i < capacity; i++) {
+            LINKED_APPEND.invokeExact(linked, (Object) values[i % OPERATIONS]);
+            ARRAY_APPEND.invokeExact(array, (Object) values[i % OPERATIONS]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void appendLinked() throws Throwable {
+        for (Integer value : values) LINKED_APPEND.invokeExact(linked, (Object) value);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void appendArray() throws Throwable {
+        for (Integer value : values) ARRAY_APPEND.invokeExact(array, (Object) value);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void absoluteLinked(Blackhole bh) throws Throwable {
+        for (int i = 0; i < OPERATIONS; i++) bh.consume((Object) LINKED_ABSOLUTE.invokeExact(linked, i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void absoluteArray(Blackhole bh) throws Throwable {
+        for (int i = 0; i < OPERATIONS; i++) bh.consume((Object) ARRAY_ABSOLUTE.invokeExact(array, i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void relativeLinked(Blackhole bh) throws Throwable {
+        for (int i = 0; i < OPERATIONS; i++) bh.consume((Object) LINKED_RELATIVE.invokeExact(linked, -i));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void relativeArray(Blackhole bh) throws Throwable {
+        for (int i = 0; i < OPERATIONS; i++) bh.consume((Object) ARRAY_RELATIVE.invokeExact(array, -i));
+    }
+
+    private static MethodHandle constructor(String type) {
+        try {
+            return MethodHandles.publicLookup()
+                    .findConstructor(Class.forName(type), MethodType.methodType(void.class, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle method(String type, String name, Class<?> returns, Class<?> argument) {
+        try {
+            return MethodHandles.publicLookup()
+                    .findVirtual(Class.forName(type), name, MethodType.methodType(returns, argument))
+                    .asType(MethodType.methodType(returns, Object.class, argument));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// The RingBuffer API over one array instead of a linked ring. Slots are indexed with a power-of-two mask, elements
+// are addressed by their distance from the oldest one, and the current cursor is such a distance too, so append,
+// the relative and absolute accessors and rotation allocate nothing and touch no pointers. Only remove() moves
+// elements: it closes the gap from whichever side is shorter.
+// Like RingBuffer it is meant for a single thread; share it only behind an external lock.
+public class ArrayRingBuffer<T> implements Iterable<T>, AutoCloseable {
+
+    private final Logger logger = Logger.getLogger(ArrayRingBuffer.class.getName());
+    private final int capacity;
+    private final Object[] slots;
+    private final int mask;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private int head;
+    private int size;
+    private int cursor;
+
+    public ArrayRingBuffer(int capacity) {
+        if (capacity < 2) {
+            logger.log(Level.WARNING, "attempt to create ring buffer with illegal capacity {0}", capacity);
+            throw new IllegalArgumentException("the capacity should not be less than 2!");
+        }
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("the capacity should not exceed 2^30: " + capacity);
+        }
+        this.capacity = capacity;
+        this.slots = new Object[Integer.highestOneBit(capacity - 1) << 1];
+        this.mask = slots.length - 1;
+        logger.log(Level.INFO, "ring buffer created, capacity={0}", capacity);
+    }
+
+    public void append(T value) {
+        checkOpen();
+        logger.log(Level.FINE, "append value: {0}", value);
+
+        int tail = (head + size) & mask;
+        if (size < capacity) {
+            size++;
+        } else {
+            // with a capacity that is a power of two the tail is the oldest slot itself
+            slots[head] = null;
+            head = (head + 1) & mask;
+            logger.log(Level.FINE, "buffer full, oldest element overwritten");
+        }
+        slots[tail] = value;
+        cursor = size - 1;
+    }
+
+    public T remove() {
+        checkOpen();
+        if (size == 0) {
+            logger.log(Level.WARNING, "remove() called on empty buffer");
+            return null;
+        }
+
+        T removed = slot(cursor);
+        logger.log(Level.FINE, "remove element: {0}", removed);
+        if (cursor < size / 2) {
+            for (int i = cursor; i > 0; i--) slots[(head + i) & mask] = slots[(head + i - 1) & mask];
+            slots[head] = null;
+            head = (head + 1) & mask;
+        } else {
+            for (int i = cursor; i < size - 1; i++) slots[(head + i) & mask] = slots[(head + i + 1) & mask];
+            slots[(head + size - 1) & mask] = null;
+        }
+        size--;
+        // the element after the removed one takes its place; after the newest that is the oldest
+        if (cursor == size) cursor = 0;
+        return removed;
+    }
+
+    public T getCurrent() {
+        checkOpen();
+        return size == 0 ? null : slot(cursor);
+    }
+
+    public T getRelative(int offset) {
+        checkOpen();
+        return slot(index(cursor, offset));
+    }
+
+    public void setRelative(int offset, T value) {
+        checkOpen();
+        slots[(head + index(cursor, offset)) & mask] = value;
+    }
+
+    public T getAbsolute(int offset) {
+        checkOpen();
+        return slot(index(0, offset));
+    }
+
+    public void setAbsolute(int offset, T value) {
+        checkOpen();
+        slots[(head + index(0, offset)) & mask] = value;
+    }
+
+    public void rotateNext() {
+        rotateNext(1);
+    }
+
+    public void rotateNext(int count) {
+        checkOpen();
+        if (size < 2) return;
+        cursor = index(cursor, count);
+    }
+
+    public void rotatePrev() {
+        rotatePrev(1);
+    }
+
+    public void rotatePrev(int count) {
+        checkOpen();
+        if (size < 2) return;
+        cursor = index(cursor, -(count % size));
+    }
+
+    // Distance from the oldest element of the element offset steps from the one at from, wrapping both ways.
+    private int index(int from, int offset) {
+        if (size == 0) throw new NoSuchElementException("the RingBuffer is empty");
+        int index = (from + offset % size) % size;
+        return index < 0 ? index + size : index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T slot(int index) {
+        return (T) slots[(head + index) & mask];
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void checkOpen() {
+        if (isClosed()) throw new IllegalStateException("the RingBuffer is already closed");
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int steps = 0;
+
+            @Override
+            public boolean hasNext() {
+                return steps < size;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return slot(steps++);
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        logger.log(Level.FINE, "close buffer");
+        if (closed.getAndSet(true)) return;
+        Arrays.fill(slots, null);
+        head = 0;
+        size = 0;
+        cursor = 0;
+        logger.log(Level.FINER, "buffer is closed");
+    }
+}
@@ -0,0 +1,83 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// A bounded ring any number of producers and consumers share without locks. Every slot carries a sequence that says
+// whose turn it is: equal to the producer sequence p when the slot is free for the p-th offer, p + 1 once that offer
+// has stored its element, and p + capacity once the matching poll has taken it back out. A thread claims a turn with
+// a CAS on the shared producer or consumer sequence, then hands the slot over with a release store of its sequence,
+// which the next owner reads with an acquire load before touching the element.
+// A thread stalled between its claim and its hand-over keeps that one slot busy; the others do not wait for it but
+// see the ring as full or empty there until it finishes.
+public final class MpmcRingBuffer<T> extends RingSequences {
+
+    private static final VarHandle TURNS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Object[] slots;
+    private final long[] turns;
+    private final int mask;
+
+    public MpmcRingBuffer(int capacity) {
+        this.slots = new Object[slots(capacity)];
+        this.turns = new long[slots.length];
+        this.mask = slots.length - 1;
+        for (int i = 0; i < turns.length; i++) turns[i] = i;
+    }
+
+    public boolean offer(T value) {
+        if (value == null) throw new NullPointerException("the RingBuffer does not accept null");
+        long producer = producer();
+        while (true) {
+            int index = (int) producer & mask;
+            long turn = (long) TURNS.getAcquire(turns, index);
+            if (turn == producer) {
+                if (casProducer(producer, producer + 1)) {
+                    slots[index] = value;
+                    TURNS.setRelease(turns, index, producer + 1);
+                    return true;
+                }
+                producer = producer();
+            } else if (turn < producer) {
+                // the slot still holds the element from the previous lap
+                return false;
+            } else {
+                producer = producer();
+            }
+        }
+    }
+
+    // Null when empty.
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long consumer = consumer();
+        while (true) {
+            int index = (int) consumer & mask;
+            long turn = (long) TURNS.getAcquire(turns, index);
+            if (turn == consumer + 1) {
+                if (casConsumer(consumer, consumer + 1)) {
+                    T value = (T) slots[index];
+                    slots[index] = null;
+                    TURNS.setRelease(turns, index, consumer + slots.length);
+                    return value;
+                }
+                consumer = consumer();
+            } else if (turn < consumer + 1) {
+                // the offer for this turn has not stored its element yet
+                return null;
+            } else {
+                consumer = consumer();
+            }
+        }
+    }
+
+    public int getSize() {
+        return size(slots.length);
+    }
+
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+}
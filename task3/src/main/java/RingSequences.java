@@ -0,0 +1,99 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// The producer and consumer sequences of the concurrent ring buffers, each on its own cache line. The JVM may reorder
+// the fields of one class but keeps superclass fields first, so the padding has to come from the class hierarchy.
+// Each side also gets a plain field next to its sequence for a cached copy of the other side's sequence; only that
+// side writes it, so it shares the line without contention.
+abstract class RingSequencesPad0 {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class RingProducerSequence extends RingSequencesPad0 {
+    private static final VarHandle PRODUCER;
+
+    static {
+        try {
+            PRODUCER = MethodHandles.lookup().findVarHandle(RingProducerSequence.class, "producer", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long producer;
+    long producerCache;
+
+    final long producer() {
+        return (long) PRODUCER.getAcquire(this);
+    }
+
+    final long producerPlain() {
+        return (long) PRODUCER.get(this);
+    }
+
+    final void producerRelease(long value) {
+        PRODUCER.setRelease(this, value);
+    }
+
+    final boolean casProducer(long expected, long value) {
+        return PRODUCER.compareAndSet(this, expected, value);
+    }
+}
+
+abstract class RingSequencesPad1 extends RingProducerSequence {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+}
+
+abstract class RingConsumerSequence extends RingSequencesPad1 {
+    private static final VarHandle CONSUMER;
+
+    static {
+        try {
+            CONSUMER = MethodHandles.lookup().findVarHandle(RingConsumerSequence.class, "consumer", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private volatile long consumer;
+    long consumerCache;
+
+    final long consumer() {
+        return (long) CONSUMER.getAcquire(this);
+    }
+
+    final long consumerPlain() {
+        return (long) CONSUMER.get(this);
+    }
+
+    final void consumerRelease(long value) {
+        CONSUMER.setRelease(this, value);
+    }
+
+    final boolean casConsumer(long expected, long value) {
+        return CONSUMER.compareAndSet(this, expected, value);
+    }
+}
+
+abstract class RingSequences extends RingConsumerSequence {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p10, p11, p12, p13, p14, p15, p16, p17;
+
+    // The slot count: the requested capacity rounded up to a power of two so a sequence maps to a slot with a mask.
+    static int slots(int capacity) {
+        if (capacity < 2) throw new IllegalArgumentException("the capacity should not be less than 2!");
+        if (capacity > 1 << 30) throw new IllegalArgumentException("the capacity should not exceed 2^30: " + capacity);
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    // Elements between the two sequences, read so that a concurrent move of either side cannot make it negative.
+    final int size(int capacity) {
+        while (true) {
+            long consumer = consumer();
+            long producer = producer();
+            if (consumer == consumer()) return (int) Math.max(0, Math.min(capacity, producer - consumer));
+        }
+    }
+}
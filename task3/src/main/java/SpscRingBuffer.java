@@ -0,0 +1,55 @@
+// A bounded ring for exactly one producer thread and one consumer thread, with no locks and no CAS. Each side owns
+// its sequence and publishes it with a release store; the other side reads it with an acquire load, which also makes
+// the slot written or cleared before the store visible. Each side re-reads the other's sequence only when its cached
+// copy says the ring is full or empty.
+// Unlike RingBuffer it does not overwrite: the oldest element belongs to the consumer, so offer() fails when full.
+public final class SpscRingBuffer<T> extends RingSequences {
+
+    private final Object[] slots;
+    private final int mask;
+
+    public SpscRingBuffer(int capacity) {
+        this.slots = new Object[slots(capacity)];
+        this.mask = slots.length - 1;
+    }
+
+    // Producer thread only.
+    public boolean offer(T value) {
+        if (value == null) throw new NullPointerException("the RingBuffer does not accept null");
+        long producer = producerPlain();
+        if (producer - producerCache >= slots.length) {
+            producerCache = consumer();
+            if (producer - producerCache >= slots.length) return false;
+        }
+        slots[(int) producer & mask] = value;
+        producerRelease(producer + 1);
+        return true;
+    }
+
+    // Consumer thread only; null when empty.
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long consumer = consumerPlain();
+        if (consumer >= consumerCache) {
+            consumerCache = producer();
+            if (consumer >= consumerCache) return null;
+        }
+        int index = (int) consumer & mask;
+        T value = (T) slots[index];
+        slots[index] = null;
+        consumerRelease(consumer + 1);
+        return value;
+    }
+
+    public int getSize() {
+        return size(slots.length);
+    }
+
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+}
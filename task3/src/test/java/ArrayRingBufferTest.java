@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArrayRingBufferTest {
+
+    private ArrayRingBuffer<String> ringBuffer;
+
+    @BeforeEach
+    void setUp() {
+        ringBuffer = new ArrayRingBuffer<>(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (!ringBuffer.isClosed()) ringBuffer.close();
+    }
+
+    @Test
+    @DisplayName("rejects capacities below 2")
+    void rejectsSmallCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new ArrayRingBuffer<>(1));
+    }
+
+    @Test
+    @DisplayName("overwrites oldest when full, also for a capacity that is not a power of two")
+    void overwriteOldest() {
+        ArrayRingBuffer<String> odd = new ArrayRingBuffer<>(3);
+        Stream.of("a", "b", "c", "d", "e").forEach(odd::append);
+        assertEquals(3, odd.getSize());
+        assertTrue(odd.isFull());
+        assertEquals("c", odd.getAbsolute(0));
+        assertEquals("e", odd.getAbsolute(2));
+        assertEquals("e", odd.getCurrent());
+    }
+
+    @Test
+    @DisplayName("relative and absolute access wrap in both directions")
+    void relativeAndAbsolute() {
+        Stream.of("a", "b", "c").forEach(ringBuffer::append);
+        assertEquals("a", ringBuffer.getRelative(1));
+        assertEquals("b", ringBuffer.getRelative(-1));
+        assertEquals("c", ringBuffer.getAbsolute(-1));
+        assertEquals("b", ringBuffer.getAbsolute(7));
+
+        ringBuffer.setRelative(1, "A");
+        ringBuffer.setAbsolute(-2, "B");
+        List<String> out = new ArrayList<>();
+        ringBuffer.forEach(out::add);
+        assertEquals(List.of("A", "B", "c"), out);
+    }
+
+    @Test
+    @DisplayName("remove moves current to the next element and wraps to the oldest")
+    void removeMovesCurrent() {
+        Stream.of("a", "b", "c", "d").forEach(ringBuffer::append);
+        ringBuffer.rotateNext(2);
+        assertEquals("b", ringBuffer.remove());
+        assertEquals("c", ringBuffer.getCurrent());
+        ringBuffer.rotatePrev(2);
+        assertEquals("d", ringBuffer.remove());
+        assertEquals("a", ringBuffer.getCurrent());
+        assertEquals("a", ringBuffer.getAbsolute(0));
+        assertEquals(2, ringBuffer.getSize());
+    }
+
+    @Test
+    @DisplayName("close makes the buffer unusable")
+    void closeMakesUnusable() {
+        ringBuffer.append("x");
+        ringBuffer.close();
+        ringBuffer.close();
+        assertTrue(ringBuffer.isClosed());
+        assertThrows(IllegalStateException.class, () -> ringBuffer.append("x"));
+        assertThrows(IllegalStateException.class, () -> ringBuffer.getAbsolute(0));
+        assertEquals(0, ringBuffer.getSize());
+    }
+
+    @Test
+    @DisplayName("random operations behave exactly like the linked RingBuffer")
+    void matchesLinkedRingBuffer() {
+        Random random = new Random(7);
+        for (int capacity : new int[]{2, 3, 4, 5, 8, 13}) {
+            RingBuffer<Integer> linked = new RingBuffer<>(capacity);
+            ArrayRingBuffer<Integer> array = new ArrayRingBuffer<>(capacity);
+            for (int step = 0; step < 20_000; step++) {
+                int offset = random.nextInt(41) - 20;
+                switch (random.nextInt(6)) {
+                    case 0, 1 -> {
+                        linked.append(step);
+                        array.append(step);
+                    }
+                    case 2 -> assertEquals(linked.remove(), array.remove());
+                    case 3 -> {
+                        linked.rotateNext(offset);
+                        array.rotateNext(offset);
+                    }
+                    case 4 -> {
+                        if (linked.isEmpty()) break;
+                        assertEquals(linked.getRelative(offset), array.getRelative(offset));
+                        linked.setRelative(offset, -step);
+                        array.setRelative(offset, -step);
+                    }
+                    default -> {
+                        if (linked.isEmpty()) break;
+                        assertEquals(linked.getAbsolute(offset), array.getAbsolute(offset));
+                        linked.setAbsolute(offset, -step);
+                        array.setAbsolute(offset, -step);
+                    }
+                }
+                assertEquals(linked.getSize(), array.getSize());
+                assertEquals(linked.getCurrent(), array.getCurrent());
+                assertEquals(linked.isFull(), array.isFull());
+            }
+            List<Integer> expected = new ArrayList<>();
+            linked.forEach(expected::add);
+            List<Integer> actual = new ArrayList<>();
+            array.forEach(actual::add);
+            assertEquals(expected, actual, "capacity " + capacity);
+        }
+    }
+}
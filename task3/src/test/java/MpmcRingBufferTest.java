@@ -0,0 +1,108 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MpmcRingBufferTest {
+
+    private static final int THREADS = 4;
+    private static final int PER_PRODUCER = 250_000;
+
+    @Test
+    @DisplayName("offers until full, then polls in FIFO order until empty")
+    void fifoAndBounds() {
+        MpmcRingBuffer<String> ringBuffer = new MpmcRingBuffer<>(4);
+        assertNull(ringBuffer.poll());
+        for (int lap = 0; lap < 3; lap++) {
+            for (String s : new String[]{"a", "b", "c", "d"}) assertTrue(ringBuffer.offer(s + lap));
+            assertFalse(ringBuffer.offer("e"));
+            assertEquals(4, ringBuffer.getSize());
+            for (String s : new String[]{"a", "b", "c", "d"}) assertEquals(s + lap, ringBuffer.poll());
+            assertNull(ringBuffer.poll());
+            assertTrue(ringBuffer.isEmpty());
+        }
+        assertThrows(NullPointerException.class, () -> ringBuffer.offer(null));
+    }
+
+    @Test
+    @Timeout(60)
+    @DisplayName("concurrent producers and consumers lose and duplicate nothing and keep each producer's order")
+    void stress() throws InterruptedException, ExecutionException {
+        MpmcRingBuffer<Integer> ringBuffer = new MpmcRingBuffer<>(8);
+        ExecutorService executor = Executors.newFixedThreadPool(2 * THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger remaining = new AtomicInteger(THREADS * PER_PRODUCER);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int p = 0; p < THREADS; p++) {
+                int first = p * PER_PRODUCER;
+                producers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = first; i < first + PER_PRODUCER; i++) {
+                        while (!ringBuffer.offer(i)) backOff();
+                    }
+                    return null;
+                }));
+            }
+            List<Future<BitSet>> consumers = new ArrayList<>();
+            for (int c = 0; c < THREADS; c++) {
+                consumers.add(executor.submit(() -> {
+                    BitSet seen = new BitSet();
+                    int[] last = new int[THREADS];
+                    Arrays.fill(last, -1);
+                    start.await();
+                    while (remaining.get() > 0) {
+                        Integer value = ringBuffer.poll();
+                        if (value == null) {
+                            backOff();
+                            continue;
+                        }
+                        remaining.decrementAndGet();
+                        assertFalse(seen.get(value), "taken twice by one consumer: " + value);
+                        seen.set(value);
+                        // one producer's elements leave the ring in the order they entered it
+                        int producer = value / PER_PRODUCER;
+                        assertTrue(value > last[producer], value + " after " + last[producer]);
+                        last[producer] = value;
+                    }
+                    return seen;
+                }));
+            }
+            start.countDown();
+            for (Future<?> producer : producers) producer.get();
+
+            BitSet all = new BitSet();
+            int total = 0;
+            for (Future<BitSet> consumer : consumers) {
+                BitSet seen = consumer.get();
+                assertFalse(all.intersects(seen), "an element was taken by two consumers");
+                all.or(seen);
+                total += seen.cardinality();
+            }
+            assertEquals(THREADS * PER_PRODUCER, total);
+            assertEquals(THREADS * PER_PRODUCER, all.nextClearBit(0));
+            assertTrue(ringBuffer.isEmpty());
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static void backOff() throws InterruptedException {
+        if (Thread.interrupted()) throw new InterruptedException();
+        Thread.yield();
+    }
+}
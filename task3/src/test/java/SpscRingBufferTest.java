@@ -0,0 +1,72 @@
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpscRingBufferTest {
+
+    @Test
+    @DisplayName("offers until full, then polls in FIFO order until empty")
+    void fifoAndBounds() {
+        SpscRingBuffer<String> ringBuffer = new SpscRingBuffer<>(3);
+        assertEquals(4, ringBuffer.getCapacity());
+        assertTrue(ringBuffer.isEmpty());
+        assertNull(ringBuffer.poll());
+        for (String s : new String[]{"a", "b", "c", "d"}) assertTrue(ringBuffer.offer(s));
+        assertFalse(ringBuffer.offer("e"));
+        assertEquals(4, ringBuffer.getSize());
+        assertEquals("a", ringBuffer.poll());
+        assertTrue(ringBuffer.offer("e"));
+        for (String s : new String[]{"b", "c", "d", "e"}) assertEquals(s, ringBuffer.poll());
+        assertNull(ringBuffer.poll());
+        assertThrows(NullPointerException.class, () -> ringBuffer.offer(null));
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<>(1));
+    }
+
+    @Test
+    @Timeout(60)
+    @DisplayName("one producer and one consumer pass every element exactly once and in order")
+    void stress() throws InterruptedException, ExecutionException {
+        int count = 1_000_000;
+        SpscRingBuffer<Integer> ringBuffer = new SpscRingBuffer<>(16);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> producer = executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    while (!ringBuffer.offer(i)) backOff();
+                }
+                return null;
+            });
+            Future<Long> consumer = executor.submit(() -> {
+                long sum = 0;
+                for (int expected = 0; expected < count; expected++) {
+                    Integer value;
+                    while ((value = ringBuffer.poll()) == null) backOff();
+                    assertEquals(expected, value.intValue());
+                    sum += value;
+                }
+                return sum;
+            });
+            producer.get();
+            assertEquals((long) count * (count - 1) / 2, consumer.get());
+            assertTrue(ringBuffer.isEmpty());
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    // Yields rather than spins so the other side gets to run even on a single core, and gives up when the test
+    // is torn down after a failure on that other side.
+    private static void backOff() throws InterruptedException {
+        if (Thread.interrupted()) throw new InterruptedException();
+        Thread.yield();
+    }
+}
@@ -0,0 +1,36 @@
+package mp.bench;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+final class BenchFiles {
+    // Held strongly so the level set by quietLogging is not lost when the logger is garbage collected.
+    private static final Logger MP_LOGGER = Logger.getLogger("mp");
+
+    private BenchFiles() {
+    }
+
+    // The pipeline logs every task at INFO or finer, which would otherwise show up in the measurements.
+    static void quietLogging() {
+        MP_LOGGER.setLevel(Level.WARNING);
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+}
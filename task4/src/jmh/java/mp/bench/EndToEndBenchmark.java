@@ -0,0 +1,72 @@
+package mp.bench;
+
+import mp.core.Coordinator;
+import mp.logic.imp.WordCount;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// A whole word-count job over a Zipf-distributed corpus, across worker and bucket counts; throughput is
+// reported against the corpus size and the number of words in it.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class EndToEndBenchmark {
+
+    @Param({"64"})
+    public int corpusMb;
+
+    @Param({"16"})
+    public int files;
+
+    @Param({"100000"})
+    public int vocabulary;
+
+    @Param({"1.0"})
+    public double skew;
+
+    @Param({"1", "2", "4", "8"})
+    public int numWorkers;
+
+    @Param({"4", "16"})
+    public int numBuckets;
+
+    private Path root;
+    private Path inputDir;
+    private ZipfCorpus.Stats corpus;
+
+    @Setup(Level.Trial)
+    public void createInputs() throws IOException {
+        BenchFiles.quietLogging();
+
+        root = Files.createTempDirectory("mp-end-to-end");
+        inputDir = root.resolve("in");
+        corpus = new ZipfCorpus(vocabulary, skew, 7).write(inputDir, files, corpusMb * 1024L * 1024);
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanOutputs() throws IOException {
+        BenchFiles.delete(root.resolve("tmp"));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInputs() throws IOException {
+        BenchFiles.delete(root);
+    }
+
+    @Benchmark
+    public boolean job(Throughput throughput) throws IOException {
+        Path tmp = root.resolve("tmp");
+        Coordinator coordinator = new Coordinator(new WordCount(), inputDir, tmp.resolve("buckets"),
+                tmp.resolve("merged"), tmp.resolve("out"), numWorkers, numBuckets);
+        coordinator.run();
+        throughput.add(corpus.bytes(), corpus.words());
+        return coordinator.isFinished();
+    }
+}
@@ -0,0 +1,79 @@
+package mp.bench;
+
+import mp.core.Coordinator;
+import mp.core.ExecutionMode;
+import mp.core.JobConfig;
+import mp.logic.imp.WordCount;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Platform thread pool against virtual threads on an I/O-heavy job: many medium files, small CPU work per byte.
+// VIRTUAL needs JDK 21; gradle jmh forks the benchmarks on a JDK 21 toolchain for that reason.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ExecutionModeBenchmark {
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ExecutionMode mode;
+
+    @Param({"4", "64"})
+    public int numWorkers;
+
+    @Param({"256"})
+    public int files;
+
+    @Param({"256"})
+    public int fileKb;
+
+    private Path root;
+    private Path inputDir;
+
+    @Setup(Level.Trial)
+    public void createInputs() throws IOException {
+        BenchFiles.quietLogging();
+
+        root = Files.createTempDirectory("mp-execution-mode");
+        inputDir = Files.createDirectories(root.resolve("in"));
+        Random random = new Random(3);
+        for (int f = 0; f < files; f++) {
+            try (BufferedWriter writer = Files.newBufferedWriter(inputDir.resolve("input-" + f + ".txt"))) {
+                long written = 0;
+                while (written < fileKb * 1024L) {
+                    String line = "line " + random.nextInt(10_000) + " of input " + f + " with some words\n";
+                    writer.write(line);
+                    written += line.length();
+                }
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanOutputs() throws IOException {
+        BenchFiles.delete(root.resolve("tmp"));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInputs() throws IOException {
+        BenchFiles.delete(root);
+    }
+
+    @Benchmark
+    public boolean job() throws IOException {
+        Path tmp = root.resolve("tmp");
+        JobConfig config = JobConfig.defaults().withExecutionMode(mode);
+        Coordinator coordinator = new Coordinator(new WordCount(), inputDir, tmp.resolve("buckets"),
+                tmp.resolve("merged"), tmp.resolve("out"), numWorkers, 8, config);
+        coordinator.run();
+        return coordinator.isFinished();
+    }
+}
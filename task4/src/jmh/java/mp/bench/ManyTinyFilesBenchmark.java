@@ -0,0 +1,62 @@
+package mp.bench;
+
+import mp.core.Coordinator;
+import mp.logic.imp.WordCount;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end latency of a job made of many small inputs, where phase hand-offs dominate the run time.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class ManyTinyFilesBenchmark {
+
+    @Param({"200"})
+    public int files;
+
+    @Param({"2", "4"})
+    public int numWorkers;
+
+    @Param({"4"})
+    public int numBuckets;
+
+    private Path root;
+    private Path inputDir;
+
+    @Setup(Level.Trial)
+    public void createInputs() throws IOException {
+        BenchFiles.quietLogging();
+
+        root = Files.createTempDirectory("mp-tiny-files");
+        inputDir = Files.createDirectories(root.resolve("in"));
+        for (int i = 0; i < files; i++) {
+            Files.writeString(inputDir.resolve("input-" + i + ".txt"), "map reduce word " + i + "\nshuffle map\n");
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void cleanOutputs() throws IOException {
+        BenchFiles.delete(root.resolve("tmp"));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteInputs() throws IOException {
+        BenchFiles.delete(root);
+    }
+
+    @Benchmark
+    public boolean job() throws IOException {
+        Path tmp = root.resolve("tmp");
+        Coordinator coordinator = new Coordinator(new WordCount(), inputDir, tmp.resolve("buckets"),
+                tmp.resolve("merged"), tmp.resolve("out"), numWorkers, numBuckets);
+        coordinator.run();
+        return coordinator.isFinished();
+    }
+}
@@ -0,0 +1,148 @@
+package mp.bench;
+
+import mp.core.JobConfig;
+import mp.core.PhaseRunner;
+import mp.io.PartitionedFile;
+import mp.io.RecordReader;
+import mp.io.Serializers;
+import mp.io.ShuffleFormat;
+import mp.logic.imp.WordCount;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Each phase of a word-count job in isolation, on one thread, over a Zipf-distributed corpus. The map phase
+// runs against the corpus, merge against the map outputs one map pass produced, reduce against one merge pass.
+// Inputs are re-read on every operation, so after the first one they are served from the page cache.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PipelinePhaseBenchmark {
+
+    private static final int INPUT_FILES = 4;
+
+    @Param({"32"})
+    public int corpusMb;
+
+    @Param({"100000"})
+    public int vocabulary;
+
+    @Param({"0.8", "1.2"})
+    public double skew;
+
+    @Param({"4", "16"})
+    public int numBuckets;
+
+    private Path root;
+    private List<Path> inputs;
+    private List<String> lines;
+    private ZipfCorpus.Stats corpus;
+    private WordCount wordCount;
+    private PhaseRunner<String, Long> runner;
+    private ShuffleFormat format;
+    private List<Path> mapOutputs;
+    private List<Path> mergedFiles;
+    private long bucketBytes;
+    private long bucketRecords;
+    private long mergedBytes;
+    private long mergedRecords;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        BenchFiles.quietLogging();
+
+        root = Files.createTempDirectory("mp-phases");
+        Path inputDir = root.resolve("in");
+        corpus = new ZipfCorpus(vocabulary, skew, 42).write(inputDir, INPUT_FILES, corpusMb * 1024L * 1024);
+        try (var files = Files.list(inputDir)) {
+            inputs = files.sorted().toList();
+        }
+        lines = new ArrayList<>();
+        for (Path input : inputs) lines.addAll(Files.readAllLines(input));
+
+        JobConfig config = JobConfig.defaults();
+        format = config.shuffleFormat();
+        wordCount = new WordCount();
+        runner = new PhaseRunner<>(new WordCount(), config, root);
+
+        executeMap();
+        for (Path mapOutput : mapOutputs) {
+            for (int b = 0; b < numBuckets; b++) {
+                try (PartitionedFile.Segment<String, Long> segment = PartitionedFile.openPartition(mapOutput, b,
+                        format, Serializers.STRING, Serializers.LONG)) {
+                    bucketBytes += segment.length();
+                    while (segment.next() != null) bucketRecords++;
+                }
+            }
+        }
+        executeMerge();
+        for (Path merged : mergedFiles) {
+            mergedBytes += Files.size(merged);
+            mergedRecords += countRecords(merged);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        BenchFiles.delete(root);
+    }
+
+    @Benchmark
+    public void wordCountMap(Throughput throughput, Blackhole bh) {
+        for (String line : lines) {
+            wordCount.map(line, (word, count) -> bh.consume(word));
+        }
+        throughput.add(corpus.bytes(), corpus.words());
+    }
+
+    @Benchmark
+    public void map(Throughput throughput) throws IOException {
+        executeMap();
+        throughput.add(corpus.bytes(), corpus.words());
+    }
+
+    @Benchmark
+    public void merge(Throughput throughput) throws IOException {
+        executeMerge();
+        throughput.add(bucketBytes, bucketRecords);
+    }
+
+    @Benchmark
+    public void reduce(Throughput throughput) throws IOException {
+        for (int b = 0; b < numBuckets; b++) {
+            runner.reduce(b, mergedFiles.get(b));
+        }
+        throughput.add(mergedBytes, mergedRecords);
+    }
+
+    private void executeMap() throws IOException {
+        mapOutputs = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            mapOutputs.add(runner.map(inputs.get(i), "corpus-" + i, numBuckets));
+        }
+    }
+
+    private void executeMerge() throws IOException {
+        mergedFiles = new ArrayList<>();
+        for (int b = 0; b < numBuckets; b++) {
+            mergedFiles.add(runner.merge(b, mapOutputs));
+        }
+    }
+
+    private long countRecords(Path file) throws IOException {
+        long records = 0;
+        try (RecordReader<String, Long> reader = format.newReader(file, Serializers.STRING, Serializers.LONG)) {
+            while (reader.next() != null) records++;
+        }
+        return records;
+    }
+}
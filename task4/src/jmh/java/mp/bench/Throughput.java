@@ -0,0 +1,27 @@
+package mp.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Secondary results reported next to the op rate: JMH divides them by the measured time, so in
+// Mode.Throughput with seconds as the output unit they read as MB/s and records/s.
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Throughput {
+    public double megabytes;
+    public long records;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        records = 0;
+    }
+
+    void add(long bytes, long records) {
+        this.megabytes += bytes / (1024.0 * 1024.0);
+        this.records += records;
+    }
+}
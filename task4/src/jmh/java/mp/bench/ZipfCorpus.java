@@ -0,0 +1,84 @@
+package mp.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+// Synthetic text whose word frequencies follow a Zipf law: rank r is drawn with probability proportional to
+// 1 / r^skew. Skew near 1 resembles natural language; larger values concentrate the data on a few hot keys.
+final class ZipfCorpus {
+    private static final int WORDS_PER_LINE = 12;
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+    private final String[] vocabulary;
+    private final double[] cumulative;
+    private final Random random;
+
+    ZipfCorpus(int vocabularySize, double skew, long seed) {
+        this.random = new Random(seed);
+        this.vocabulary = createVocabulary(vocabularySize, random);
+        this.cumulative = new double[vocabularySize];
+        double sum = 0;
+        for (int rank = 0; rank < vocabularySize; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, skew);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < vocabularySize; rank++) cumulative[rank] /= sum;
+    }
+
+    String nextWord() {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (rank < 0) rank = Math.min(-rank - 1, cumulative.length - 1);
+        return vocabulary[rank];
+    }
+
+    // Spreads totalBytes of text over the given number of files and reports what was written.
+    Stats write(Path dir, int files, long totalBytes) throws IOException {
+        Files.createDirectories(dir);
+        long bytes = 0;
+        long words = 0;
+        for (int f = 0; f < files; f++) {
+            long target = totalBytes / files + (f < totalBytes % files ? 1 : 0);
+            long written = 0;
+            try (BufferedWriter writer = Files.newBufferedWriter(dir.resolve("corpus-" + f + ".txt"))) {
+                StringBuilder line = new StringBuilder();
+                while (written < target) {
+                    line.setLength(0);
+                    for (int w = 0; w < WORDS_PER_LINE; w++) {
+                        if (w > 0) line.append(' ');
+                        line.append(nextWord());
+                    }
+                    line.append('\n');
+                    writer.append(line);
+                    written += line.toString().getBytes(StandardCharsets.UTF_8).length;
+                    words += WORDS_PER_LINE;
+                }
+            }
+            bytes += written;
+        }
+        return new Stats(bytes, words);
+    }
+
+    private static String[] createVocabulary(int size, Random random) {
+        Set<String> seen = new HashSet<>();
+        String[] words = new String[size];
+        for (int i = 0; i < size; ) {
+            int length = 2 + random.nextInt(9);
+            StringBuilder word = new StringBuilder(length);
+            for (int c = 0; c < length; c++) word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            // a few capitalised forms exercise WordCount's case-insensitive output order
+            if (random.nextInt(16) == 0) word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+            if (seen.add(word.toString())) words[i++] = word.toString();
+        }
+        return words;
+    }
+
+    record Stats(long bytes, long words) {
+    }
+}
@@ -0,0 +1,116 @@
+package mp.core;
+
+import mp.logic.Partitioner;
+import mp.logic.WorkerLogic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Runs single map, merge and reduce tasks on one Worker outside any job, for benchmarks that time a phase alone.
+// There is no coordinator: every attempt commits straight away and a merge reads exactly the map outputs it is given.
+public final class PhaseRunner<K extends Comparable<K>, V> {
+    private final WorkerLogic<K, V> logic;
+    private final JobConfig config;
+    private final Path bucketsDir;
+    private final Path mergedDir;
+    private final Path outDir;
+    private final Worker<K, V> worker;
+
+    public PhaseRunner(WorkerLogic<K, V> logic, JobConfig config, Path workDir) {
+        this.logic = logic;
+        this.config = config;
+        this.bucketsDir = workDir.resolve("buckets");
+        this.mergedDir = workDir.resolve("merged");
+        this.outDir = workDir.resolve("out");
+        this.worker = new Worker<>(new Source(), logic);
+    }
+
+    // Maps the whole input and returns the map output holding every bucket.
+    public Path map(Path input, String outputName, int buckets) throws IOException {
+        worker.executeMap(new MapTask(input, 0, Files.size(input), outputName, buckets));
+        return ShuffleFiles.mapOutputFile(bucketsDir, outputName, config.shuffleFormat());
+    }
+
+    // Merges one bucket of the given map outputs into its final file and returns it.
+    public Path merge(int bucket, List<Path> mapOutputs) throws IOException {
+        List<ShuffleInput> inputs = mapOutputs.stream().map(file -> ShuffleInput.partition(file, bucket)).toList();
+        Path merged = ShuffleFiles.mergedFile(mergedDir, bucket, config.shuffleFormat());
+        worker.executeMerge(new MergeTask(bucket, inputs, merged));
+        return merged;
+    }
+
+    public void reduce(int bucket, Path mergedFile) throws IOException {
+        worker.executeReduce(new ReduceTask(bucket, mergedFile));
+    }
+
+    private final class Source implements TaskSource {
+        @Override
+        public JobConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public CpuLimiter getCpuLimiter() {
+            return CpuLimiter.UNBOUNDED;
+        }
+
+        @Override
+        public Partitioner<?> getPartitioner() {
+            return logic.partitioner();
+        }
+
+        @Override
+        public Path getBucketsDir() {
+            return bucketsDir;
+        }
+
+        @Override
+        public Path getMergedDir() {
+            return mergedDir;
+        }
+
+        @Override
+        public Path getOutDir() {
+            return outDir;
+        }
+
+        @Override
+        public MemoryShuffle getMemoryShuffle() {
+            return null;
+        }
+
+        @Override
+        public Task takeTask() {
+            return ExitTask.getInstance();
+        }
+
+        @Override
+        public boolean tryCommit(Task task, TaskCounters counters) {
+            return true;
+        }
+
+        @Override
+        public void onTaskFailed(Task task, Exception e) {
+            throw new IllegalStateException(task.name() + " failed", e);
+        }
+
+        @Override
+        public void onMapDone(String outputName) {
+        }
+
+        @Override
+        public void onMergeDone(int bucketId, Path mergedFile) {
+        }
+
+        @Override
+        public void onReduceDone() {
+        }
+
+        @Override
+        public void reportWorkerError(Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
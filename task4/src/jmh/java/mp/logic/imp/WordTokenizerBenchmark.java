@@ -0,0 +1,57 @@
+package mp.logic.imp;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Compares the hand-written scanner with the regex pipeline WordCount.map used before it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WordTokenizerBenchmark {
+
+    private static final String[] WORDS = {"the", "map", "reduce", "особенности", "Java", "worker's", "data,",
+            "(shuffle)", "2024", "bucket.", "—", "ключ"};
+
+    private final WordTokenizer tokenizer = new WordTokenizer();
+    private String[] lines;
+
+    @Setup
+    public void createLines() {
+        Random random = new Random(1);
+        lines = new String[1024];
+        for (int i = 0; i < lines.length; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int w = 0; w < 12; w++) line.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            lines[i] = line.toString();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void scanner(Blackhole bh) {
+        for (String line : lines) {
+            tokenizer.tokenize(line, bh::consume);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void regex(Blackhole bh) {
+        for (String line : lines) {
+            List<String> words = Arrays.stream(line.trim().split("\\s+"))
+                    .map(word -> word.replaceAll("[^\\p{L}\\p{N}]", ""))
+                    .filter(word -> !word.isEmpty())
+                    .collect(Collectors.toList());
+            bh.consume(words);
+        }
+    }
+}
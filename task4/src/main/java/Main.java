@@ -1,15 +1,26 @@
 import mp.core.Coordinator;
+import mp.core.JobConfig;
+import mp.core.JobGraph;
+import mp.core.StreamingJob;
+import mp.io.ShuffleFormat;
+import mp.logic.imp.TopWordsByLetter;
 import mp.logic.imp.WordCount;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.net.InetAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Comparator;
 
 public class Main {
     public static void main(String[] args) throws IOException, InterruptedException {
-        tmpClean();
+        // -Dmp.incremental=true keeps tmp between runs and only recomputes inputs that changed since the last one
+        boolean incremental = Boolean.getBoolean("mp.incremental");
+        if (!incremental) {
+            tmpClean();
+        }
 
         Path resources = Path.of("src/main/resources");
         Path tmp = Path.of("tmp");
@@ -17,7 +28,45 @@ public class Main {
         Path mergedDir = tmp.resolve("merged");
         Path outDir = tmp.resolve("out");
 
-        Coordinator coordinator = new Coordinator(new WordCount(), resources, bucketsDir, mergedDir, outDir, 2, 4);
+        // -Dmp.shuffle.format=text keeps the intermediate files readable for debugging
+        ShuffleFormat format = ShuffleFormat.valueOf(
+                System.getProperty("mp.shuffle.format", ShuffleFormat.BINARY.name()).toUpperCase());
+        JobConfig config = JobConfig.defaults().withShuffleFormat(format).withIncremental(incremental);
+        // -Dmp.shuffle.memory.mb=N keeps up to N MB of intermediate output on the heap instead of in tmp
+        String shuffleMemory = System.getProperty("mp.shuffle.memory.mb");
+        if (shuffleMemory != null) {
+            config = config.withShuffleMemoryBytes(Long.parseLong(shuffleMemory) << 20);
+        }
+
+        // -Dmp.streaming.interval.ms=N keeps running and processes files added to the input every N milliseconds
+        String streamingInterval = System.getProperty("mp.streaming.interval.ms");
+        if (streamingInterval != null) {
+            new StreamingJob(new WordCount(), resources, bucketsDir, mergedDir, outDir, 2, 4, config,
+                    Duration.ofMillis(Long.parseLong(streamingInterval))).run();
+            return;
+        }
+
+        // -Dmp.topk=K follows the word count with a second stage keeping the K most frequent words per letter,
+        // writing tmp/count and tmp/top instead of a single job's directories
+        String topK = System.getProperty("mp.topk");
+        if (topK != null) {
+            JobGraph graph = new JobGraph(tmp, 2, config);
+            JobGraph.Stage count = graph.source("count", new WordCount(), 4, resources);
+            graph.stage("top", new TopWordsByLetter(Integer.parseInt(topK)), 1, count);
+            graph.run();
+            return;
+        }
+
+        Coordinator coordinator = new Coordinator(new WordCount(), resources, bucketsDir, mergedDir, outDir, 2, 4,
+                config);
+        // -Dmp.coordinator.port=N additionally accepts workers started with mp.core.RemoteWorker; they must run on
+        // this host unless -Dmp.coordinator.bind=ADDRESS names an interface other hosts can reach
+        String port = System.getProperty("mp.coordinator.port");
+        if (port != null) {
+            String bind = System.getProperty("mp.coordinator.bind");
+            coordinator.serve(bind == null ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bind),
+                    Integer.parseInt(port));
+        }
         coordinator.run();
     }
 
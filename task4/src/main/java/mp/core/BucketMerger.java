@@ -0,0 +1,163 @@
+package mp.core;
+
+import mp.io.RecordReader;
+import mp.io.RecordWriter;
+import mp.io.Serializer;
+import mp.io.ShuffleFormat;
+import mp.model.KeyValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Streams several sorted inputs into one sorted file; memory is bounded by one read buffer per input.
+final class BucketMerger {
+    private static final Logger logger = Logger.getLogger(BucketMerger.class.getName());
+    static final int MAX_FAN_IN = 64;
+
+    private BucketMerger() {
+    }
+
+    static <K extends Comparable<K>, V> long merge(List<Path> inputs, Path output, ShuffleFormat format,
+                                                   Serializer<K> keys, Serializer<V> values) throws IOException {
+        return merge(inputs, output, format, keys, values, null);
+    }
+
+    static <K extends Comparable<K>, V> long merge(List<Path> inputs, Path output, ShuffleFormat format,
+                                                   Serializer<K> keys, Serializer<V> values,
+                                                   BinaryOperator<V> combiner) throws IOException {
+        return merge(inputs.stream().map(ShuffleInput::whole).toList(), output, format, keys, values, combiner,
+                fromDisk(format, keys, values, bytes -> {
+                }));
+    }
+
+    static <K extends Comparable<K>, V> long merge(List<ShuffleInput> inputs, Path output, ShuffleFormat format,
+                                                   Serializer<K> keys, Serializer<V> values,
+                                                   BinaryOperator<V> combiner, InputOpener<K, V> opener)
+            throws IOException {
+        try (RecordWriter<K, V> writer = format.newWriter(output, keys, values)) {
+            return mergeInto(inputs, output, writer, format, keys, values, combiner, opener);
+        }
+    }
+
+    // Inputs beyond MAX_FAN_IN are first merged in groups into intermediate files next to output, so open files
+    // stay bounded. A non-null combiner folds records with equal keys into one as they meet in the merge.
+    // opener opens the given inputs; intermediate files are always read back from disk.
+    static <K extends Comparable<K>, V> long mergeInto(List<ShuffleInput> inputs, Path output,
+                                                       RecordWriter<K, V> writer, ShuffleFormat format,
+                                                       Serializer<K> keys, Serializer<V> values,
+                                                       BinaryOperator<V> combiner, InputOpener<K, V> opener)
+            throws IOException {
+        List<ShuffleInput> pending = inputs;
+        InputOpener<K, V> open = opener;
+        int pass = 0;
+        while (pending.size() > MAX_FAN_IN) {
+            List<ShuffleInput> next = new ArrayList<>();
+            for (int from = 0; from < pending.size(); from += MAX_FAN_IN) {
+                List<ShuffleInput> group = pending.subList(from, Math.min(from + MAX_FAN_IN, pending.size()));
+                Path intermediate = output.resolveSibling(output.getFileName() + ".pass" + pass + "-" + next.size());
+                try (RecordWriter<K, V> passWriter = format.newWriter(intermediate, keys, values)) {
+                    mergeGroup(group, intermediate, passWriter, combiner, open);
+                }
+                if (pass > 0) {
+                    for (ShuffleInput input : group) Files.delete(input.file());
+                }
+                next.add(ShuffleInput.whole(intermediate));
+            }
+            logger.log(Level.FINER, "merge pass {0} reduced {1} files to {2}",
+                    new Object[]{pass, pending.size(), next.size()});
+            pending = next;
+            open = fromDisk(format, keys, values, bytes -> {
+            });
+            pass++;
+        }
+
+        long written = mergeGroup(pending, output, writer, combiner, open);
+        if (pass > 0) {
+            for (ShuffleInput input : pending) Files.delete(input.file());
+        }
+        return written;
+    }
+
+    // Reads every input from its file and reports the bytes it occupies to sizes.
+    static <K, V> InputOpener<K, V> fromDisk(ShuffleFormat format, Serializer<K> keys, Serializer<V> values,
+                                             LongConsumer sizes) {
+        return input -> input.open(format, keys, values, sizes);
+    }
+
+    private static <K extends Comparable<K>, V> long mergeGroup(List<ShuffleInput> inputs, Path output,
+                                                                RecordWriter<K, V> writer, BinaryOperator<V> combiner,
+                                                                InputOpener<K, V> opener) throws IOException {
+        logger.log(Level.FINER, "merging {0} sorted inputs into {1}",
+                new Object[]{inputs.size(), output.getFileName()});
+
+        List<Cursor<K, V>> cursors = new ArrayList<>(inputs.size());
+        PriorityQueue<Cursor<K, V>> heap = new PriorityQueue<>(Math.max(1, inputs.size()),
+                (a, b) -> a.current.key().compareTo(b.current.key()));
+        long written = 0;
+
+        try {
+            for (ShuffleInput input : inputs) {
+                Cursor<K, V> cursor = new Cursor<>(opener.open(input));
+                cursors.add(cursor);
+                if (cursor.advance()) heap.add(cursor);
+            }
+
+            KeyValue<K, V> held = null;
+            while (!heap.isEmpty()) {
+                Cursor<K, V> cursor = heap.poll();
+                KeyValue<K, V> kv = cursor.current;
+                if (cursor.advance()) heap.add(cursor);
+
+                if (combiner == null) {
+                    writer.write(kv);
+                    written++;
+                } else if (held != null && held.key().compareTo(kv.key()) == 0) {
+                    held = new KeyValue<>(held.key(), combiner.apply(held.value(), kv.value()));
+                } else {
+                    if (held != null) {
+                        writer.write(held);
+                        written++;
+                    }
+                    held = kv;
+                }
+            }
+            if (held != null) {
+                writer.write(held);
+                written++;
+            }
+        } finally {
+            for (Cursor<K, V> cursor : cursors) {
+                cursor.reader.close();
+            }
+        }
+
+        logger.log(Level.FINER, "merged {0} records into {1}", new Object[]{written, output.getFileName()});
+        return written;
+    }
+
+    interface InputOpener<K, V> {
+        RecordReader<K, V> open(ShuffleInput input) throws IOException;
+    }
+
+    private static final class Cursor<K, V> {
+        private final RecordReader<K, V> reader;
+        private KeyValue<K, V> current;
+
+        Cursor(RecordReader<K, V> reader) {
+            this.reader = reader;
+        }
+
+        boolean advance() throws IOException {
+            current = reader.next();
+            return current != null;
+        }
+    }
+}
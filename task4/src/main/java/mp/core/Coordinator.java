@@ -1,17 +1,24 @@
 package mp.core;
 
+import mp.logic.Partitioner;
+import mp.logic.SamplingPartitioner;
 import mp.logic.WorkerLogic;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.net.InetAddress;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
@@ -19,177 +26,631 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 
-public class Coordinator {
+public class Coordinator implements TaskSource {
     private static final Logger logger = Logger.getLogger(Coordinator.class.getName());
+    private static final long MONITOR_INTERVAL_MS = 100;
+    // Committed map outputs of a bucket are merged into a run once this many have piled up, so the final merge
+    // after the last map only has to combine a few runs and the most recent outputs.
+    static final int INCREMENTAL_MERGE_FILES = 8;
     private final int numBuckets;
     private final int numWorkers;
-    private final WorkerLogic logic;
-    private final Queue<Path> mapQueue = new ConcurrentLinkedQueue<>();
-    private final Queue<ReduceTask> reduceQueue = new ConcurrentLinkedQueue<>();
+    private final WorkerLogic<?, ?> logic;
+    private final JobConfig config;
+    private final BlockingDeque<Task> taskQueue = new LinkedBlockingDeque<>();
+    private final CountDownLatch completion = new CountDownLatch(1);
+    private final TaskTracker tracker;
+    private final Partitioner<?> partitioner;
+    private final JobMetrics metrics;
     private final AtomicInteger remainingMaps;
     private final AtomicInteger remainingReduces;
     private final ReentrantLock lock = new ReentrantLock();
+    private final List<List<ShuffleInput>> unmerged = new ArrayList<>();
+    private final List<List<ShuffleInput>> runs = new ArrayList<>();
+    private final Set<Path> runsInFlight = new HashSet<>();
+    private int nextRun;
+    // Incremental mode only: the manifest this run will leave behind and the buckets whose inputs changed.
+    private final InputManifest manifest;
+    private final BitSet affectedBuckets = new BitSet();
+    private final BitSet rebuiltBuckets = new BitSet();
+    private final List<List<ShuffleInput>> reused = new ArrayList<>();
+    private boolean resumed;
     private final ExecutorService executor;
+    // false when the executor is shared with the other stages of a JobGraph, which shuts it down itself
+    private final boolean ownsExecutor;
+    private final CpuLimiter cpuLimiter;
     private final Path bucketsDir;
     private final Path mergedDir;
     private final Path outDir;
-    private volatile boolean reducePhaseStarted = false;
+    private volatile CoordinatorServer server;
+    private volatile MemoryShuffle memoryShuffle;
     private volatile boolean errorOccuped = false;
+    private volatile JobFailedException failure;
 
-    public Coordinator(WorkerLogic logic, Path inputDir, Path bucketsDir, Path mergedDir, Path outDir, int numWorkers,
+    public Coordinator(WorkerLogic<?, ?> logic, Path inputDir, Path bucketsDir, Path mergedDir, Path outDir, int numWorkers,
                        int numBuckets) throws IOException {
+        this(logic, inputDir, bucketsDir, mergedDir, outDir, numWorkers, numBuckets, JobConfig.defaults());
+    }
+
+    public Coordinator(WorkerLogic<?, ?> logic, Path inputDir, Path bucketsDir, Path mergedDir, Path outDir, int numWorkers,
+                       int numBuckets, JobConfig config) throws IOException {
+        this(logic, listInputs(inputDir), bucketsDir, mergedDir, outDir, numWorkers, numBuckets, config, null, null);
+    }
+
+    // Workers run on executor and cpuLimiter when they are given, otherwise on ones this coordinator creates.
+    Coordinator(WorkerLogic<?, ?> logic, List<Path> inputs, Path bucketsDir, Path mergedDir, Path outDir,
+                int numWorkers, int numBuckets, JobConfig config, ExecutorService executor, CpuLimiter cpuLimiter)
+            throws IOException {
         this.logic = logic;
+        this.config = config;
         this.numBuckets = numBuckets;
         this.numWorkers = numWorkers;
         this.bucketsDir = bucketsDir;
         this.mergedDir = mergedDir;
         this.outDir = outDir;
+        this.metrics = new JobMetrics(numBuckets);
+        this.tracker = new TaskTracker(config, metrics, this::enqueue);
+        for (int b = 0; b < numBuckets; b++) {
+            unmerged.add(new ArrayList<>());
+            runs.add(new ArrayList<>());
+            reused.add(new ArrayList<>());
+        }
 
-        try (Stream<Path> files = Files.list(inputDir)) {
-            files.filter(Files::isRegularFile).forEach(mapQueue::add);
+        InputManifest previous = openManifest();
+        this.manifest = previous == null ? null : new InputManifest(signature());
+        if (manifest == null) affectedBuckets.set(0, numBuckets);
+
+        List<MapTask> maps = new ArrayList<>();
+        for (Path file : inputs) {
+            if (previous != null && reuseOutputs(file, previous)) continue;
+            splitInput(file, maps);
+        }
+        if (previous != null) {
+            // whatever is left in the old manifest was removed from the input directory
+            previous.entries().values().forEach(this::discardOutputs);
+            logger.log(Level.INFO, "incremental run: {0} of {1} inputs are new or changed, {2} buckets affected so far",
+                    new Object[]{manifest.entries().size() - countReused(), manifest.entries().size(),
+                            affectedBuckets.cardinality()});
+        }
+        this.partitioner = createPartitioner(logic, maps);
+        // incremental runs reuse map outputs from disk, so they need every output written there
+        if (config.shuffleMemoryBytes() > 0 && manifest == null) {
+            this.memoryShuffle = new MemoryShuffle(config.shuffleMemoryBytes());
         }
+        maps.forEach(tracker::submit);
 
-        this.remainingMaps = new AtomicInteger(mapQueue.size());
+        this.remainingMaps = new AtomicInteger(maps.size());
         this.remainingReduces = new AtomicInteger(numBuckets);
-        this.executor = Executors.newFixedThreadPool(numWorkers);
+        this.ownsExecutor = executor == null;
+        this.executor = ownsExecutor ? newExecutor(config.executionMode(), numWorkers) : executor;
+        if (cpuLimiter != null) {
+            this.cpuLimiter = cpuLimiter;
+        } else {
+            this.cpuLimiter = config.executionMode() == ExecutionMode.VIRTUAL
+                    ? CpuLimiter.of(config.cpuParallelism())
+                    : CpuLimiter.UNBOUNDED;
+        }
+
+        if (maps.isEmpty()) {
+            scheduleMerges();
+        }
+    }
+
+    @Override
+    public JobConfig getConfig() {
+        return config;
     }
 
+    @Override
+    public CpuLimiter getCpuLimiter() {
+        return cpuLimiter;
+    }
+
+    public JobMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public Partitioner<?> getPartitioner() {
+        return partitioner;
+    }
+
+    WorkerLogic<?, ?> getLogic() {
+        return logic;
+    }
+
+    @Override
     public Path getBucketsDir() {
         return bucketsDir;
     }
 
+    @Override
     public Path getOutDir() {
         return outDir;
     }
 
-    private void mergeBuckets() throws IOException {
-        logger.log(Level.FINE, "starting bucket merging phase");
+    @Override
+    public MemoryShuffle getMemoryShuffle() {
+        return memoryShuffle;
+    }
+
+    @Override
+    public Path getMergedDir() {
+        return mergedDir;
+    }
 
-        Files.createDirectories(mergedDir);
+    private <K extends Comparable<K>, V> Partitioner<K> createPartitioner(WorkerLogic<K, V> logic,
+                                                                          List<MapTask> maps) throws IOException {
+        if (config.partitioning() != Partitioning.SAMPLING) {
+            return logic.partitioner();
+        }
+        Map<K, Long> counts = KeySampler.sample(logic, maps);
+        SamplingPartitioner<K> sampling = SamplingPartitioner.balance(counts, numBuckets, logic.partitioner());
+        logger.log(Level.INFO, "sampled {0} distinct keys, pinned {1} hot keys to buckets",
+                new Object[]{counts.size(), sampling.pinned().size()});
+        return sampling;
+    }
 
-        for (int b = 0; b < numBuckets; b++) {
-            final int bucketId = b;
-            Path mergedFile = mergedDir.resolve("merged-" + bucketId + ".txt");
-            List<String> allLines = new ArrayList<>();
-
-            try (Stream<Path> files = Files.list(bucketsDir)) {
-                List<Path> bucketFiles = files
-                        .filter(p -> {
-                            String name = p.getFileName().toString();
-                            return name.endsWith("-" + bucketId + ".txt");
-                        })
-                        .toList();
-
-                logger.log(Level.FINER, "found {0} files for bucket {1}",
-                        new Object[]{bucketFiles.size(), bucketId});
-
-                for (Path file : bucketFiles) {
-                    allLines.addAll(Files.readAllLines(file));
+    private InputManifest openManifest() throws IOException {
+        if (!config.incremental()) return null;
+        if (config.partitioning() == Partitioning.SAMPLING) {
+            // the sampled table depends on every input, so no map output survives a change to any of them
+            logger.log(Level.WARNING, "incremental runs need a fixed partitioner, recomputing all inputs");
+            return null;
+        }
+        Path file = bucketsDir.resolve(InputManifest.FILE_NAME);
+        InputManifest previous = InputManifest.load(file, signature());
+        // A run that fails halfway leaves buckets out of step with the manifest, so it only comes back on success.
+        Files.deleteIfExists(file);
+        return previous;
+    }
+
+    private String signature() {
+        return logic.getClass().getName() + "|" + config.shuffleFormat() + "|" + numBuckets + "|"
+                + config.splitSize();
+    }
+
+    // Takes the entry of an input out of the previous manifest and, if the input is unchanged and its map outputs
+    // are still there, feeds them straight to the final merges.
+    private boolean reuseOutputs(Path file, InputManifest previous) throws IOException {
+        String name = file.getFileName().toString();
+        InputManifest.Entry old = previous.entries().remove(name);
+        resumed |= old != null;
+        if (old != null && InputManifest.unchanged(file, old) && outputsExist(old)) {
+            InputManifest.Entry current = new InputManifest.Entry(old.size,
+                    Files.getLastModifiedTime(file).toMillis(), old.checksum);
+            current.outputs.addAll(old.outputs);
+            current.buckets.or(old.buckets);
+            current.reused = true;
+            manifest.put(name, current);
+            for (String output : old.outputs) {
+                Path mapOutput = mapOutputFile(output);
+                for (int b = 0; b < numBuckets; b++) {
+                    reused.get(b).add(ShuffleInput.partition(mapOutput, b));
                 }
             }
+            logger.log(Level.FINE, "reusing {0} map outputs of unchanged {1}", new Object[]{old.outputs.size(), name});
+            return true;
+        }
+        if (old != null) discardOutputs(old);
+        manifest.put(name, InputManifest.Entry.of(file));
+        return false;
+    }
+
+    private boolean outputsExist(InputManifest.Entry entry) {
+        for (String output : entry.outputs) {
+            if (!Files.exists(mapOutputFile(output))) return false;
+        }
+        return true;
+    }
+
+    private void discardOutputs(InputManifest.Entry entry) {
+        affectedBuckets.or(entry.buckets);
+        rebuiltBuckets.or(entry.buckets);
+        for (String output : entry.outputs) {
+            try {
+                Files.deleteIfExists(mapOutputFile(output));
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "failed to delete stale map output", e);
+            }
+        }
+    }
+
+    private Path mapOutputFile(String outputName) {
+        return ShuffleFiles.mapOutputFile(bucketsDir, outputName, config.shuffleFormat());
+    }
+
+    private long countReused() {
+        return manifest.entries().values().stream().filter(entry -> entry.reused).count();
+    }
 
-            logger.log(Level.FINER, "writing merged file for bucket {0} with {1} lines",
-                    new Object[]{bucketId, allLines.size()});
+    static List<Path> listInputs(Path inputDir) throws IOException {
+        try (Stream<Path> files = Files.list(inputDir)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private void splitInput(Path file, List<MapTask> maps) throws IOException {
+        long size = Files.size(file);
+        // output of an earlier stage is made of blocks, so it is mapped whole
+        if (ShuffleFiles.isStageOutput(file)) {
+            maps.add(new MapTask(file, 0, size, ShuffleFiles.stageInputName(file), numBuckets));
+            return;
+        }
+        String baseName = file.getFileName().toString().replace(".txt", "");
+        long splitSize = config.splitSize();
 
-            Files.write(mergedFile, allLines);
-            reduceQueue.add(new ReduceTask(bucketId, mergedFile));
+        if (size <= splitSize) {
+            maps.add(new MapTask(file, 0, size, baseName, numBuckets));
+            return;
         }
-        logger.log(Level.FINE, "bucket merging completed for {0} buckets", numBuckets);
+
+        int splits = 0;
+        for (long start = 0; start < size; start += splitSize, splits++) {
+            maps.add(new MapTask(file, start, Math.min(splitSize, size - start), baseName + "." + splits,
+                    numBuckets));
+        }
+        logger.log(Level.FINE, "split {0} into {1} map tasks", new Object[]{file.getFileName(), splits});
     }
 
-    public Task takeTask() {
+    private void scheduleMerges() {
+        List<Integer> buckets = new ArrayList<>();
+        for (int b = 0; b < numBuckets; b++) {
+            // an untouched bucket keeps the output of the previous run as long as that output is still there
+            if (affectedBuckets.get(b) || !Files.exists(ShuffleFiles.outFile(outDir, b))) buckets.add(b);
+        }
+        int skipped = numBuckets - buckets.size();
+        logger.log(Level.FINE, "all map tasks done, scheduling {0} merge tasks", buckets.size());
+        if (skipped > 0) {
+            logger.log(Level.INFO, "keeping the previous output of {0} unchanged buckets", skipped);
+            if (remainingReduces.addAndGet(-skipped) == 0) {
+                complete();
+                return;
+            }
+        }
+        for (int b : buckets) {
+            List<ShuffleInput> inputs = new ArrayList<>(baseInputs(b));
+            inputs.addAll(runs.get(b));
+            inputs.addAll(unmerged.get(b));
+            tracker.submit(new MergeTask(b, inputs, ShuffleFiles.mergedFile(mergedDir, b, config.shuffleFormat())));
+        }
+    }
+
+    // When a bucket only gained inputs since the last run, its merged file already folds every reused map output,
+    // so the new outputs are merged onto it instead of onto the whole history.
+    private List<ShuffleInput> baseInputs(int bucketId) {
+        Path merged = ShuffleFiles.mergedFile(mergedDir, bucketId, config.shuffleFormat());
+        if (resumed && !rebuiltBuckets.get(bucketId) && Files.exists(merged)) {
+            return List.of(ShuffleInput.whole(merged));
+        }
+        return reused.get(bucketId);
+    }
+
+    private void scheduleRun(int bucketId) {
+        List<ShuffleInput> pending = unmerged.get(bucketId);
+        Path run = ShuffleFiles.runFile(mergedDir, bucketId, nextRun++, config.shuffleFormat());
+        logger.log(Level.FINER, "merging {0} map outputs of bucket {1} into {2}",
+                new Object[]{pending.size(), bucketId, run.getFileName()});
+        runsInFlight.add(run.toAbsolutePath());
+        tracker.submit(new MergeTask(bucketId, pending, run));
+        pending.clear();
+    }
+
+    // Lets workers in other JVMs pull tasks from this coordinator; port 0 picks a free port. The protocol has no
+    // authentication, so it only listens on loopback unless given the address of a trusted interface. Workers
+    // rebuild the logic from a serialized copy or from its class name, so logic that is neither Serializable nor
+    // built by a public no-arg constructor is rejected here with an IllegalArgumentException.
+    public CoordinatorServer serve(int port) throws IOException {
+        return serve(InetAddress.getLoopbackAddress(), port);
+    }
+
+    public CoordinatorServer serve(InetAddress bindAddress, int port) throws IOException {
+        if (memoryShuffle != null) {
+            logger.log(Level.INFO, "remote workers read shuffle outputs from disk, disabling the in-memory shuffle");
+            memoryShuffle = null;
+        }
+        server = new CoordinatorServer(this, bindAddress, port);
+        return server;
+    }
+
+    @Override
+    public Task takeTask() throws InterruptedException {
         logger.log(Level.FINEST, "worker requesting a new task");
 
-        Path inputFile = mapQueue.poll();
-        if (inputFile != null) {
-            logger.log(Level.FINER, "assigned map task for file: {0}", inputFile.getFileName());
-            return new MapTask(inputFile, numBuckets);
+        Task task = taskQueue.take();
+        while (task != ExitTask.getInstance() && !tracker.start(task, Thread.currentThread())) {
+            logger.log(Level.FINER, "skipping attempt {0} of already committed {1}",
+                    new Object[]{task.attempt(), task.name()});
+            task = taskQueue.take();
         }
+        logAssigned(task);
+        return task;
+    }
+
+    // Remote connections poll so they notice completion; exit tasks stay queued for the local workers.
+    Task pollTask(long timeout, TimeUnit unit) throws InterruptedException {
+        Task task = taskQueue.poll(timeout, unit);
+        while (task != null && task != ExitTask.getInstance() && !tracker.start(task)) {
+            task = taskQueue.poll();
+        }
+        if (task == ExitTask.getInstance()) {
+            taskQueue.add(task);
+        } else if (task != null) {
+            logAssigned(task);
+        }
+        return task;
+    }
 
-        if (reducePhaseStarted) {
-            ReduceTask rt = reduceQueue.poll();
-            if (rt != null) {
-                logger.log(Level.FINER, "assigned reduce task for bucket {0}", rt.id());
-                return rt;
+    // Retries and relaunches go ahead of the tasks still waiting for their first attempt, so a job close to its end
+    // is not held up by one task and a relaunch only waits for a worker that is stuck. So do merges of map outputs
+    // while maps are still queued: the outputs they consume leave the shuffle memory for the maps that follow.
+    private void enqueue(Task task) {
+        if (task.attempt() > 0 || (task instanceof MergeTask && remainingMaps.get() > 0)) {
+            taskQueue.addFirst(task);
+        } else {
+            taskQueue.add(task);
+        }
+    }
+
+    private void logAssigned(Task task) {
+        if (task instanceof MapTask mt) {
+            logger.log(Level.FINER, "assigned map task for file: {0}", mt.inputFile().getFileName());
+        } else if (task instanceof MergeTask mt) {
+            logger.log(Level.FINER, "assigned merge task for bucket {0}", mt.id());
+        } else if (task instanceof ReduceTask rt) {
+            logger.log(Level.FINER, "assigned reduce task for bucket {0}", rt.id());
+        }
+    }
+
+    // Only the first attempt of a task to finish may publish its output.
+    @Override
+    public boolean tryCommit(Task task, TaskCounters counters) {
+        if (!tracker.tryCommit(task)) return false;
+        metrics.taskCommitted(task, counters);
+        releaseInputs(task);
+        if (manifest != null && task instanceof MapTask mt) {
+            recordMapOutput(mt, counters);
+        }
+        return true;
+    }
+
+    // No task reads the inputs of a committed one again, so those kept in memory give their bytes back.
+    private void releaseInputs(Task task) {
+        MemoryShuffle memory = memoryShuffle;
+        if (memory == null) return;
+        if (task instanceof MergeTask mt) {
+            mt.inputs().forEach(memory::consumed);
+        } else if (task instanceof ReduceTask rt) {
+            memory.consumed(ShuffleInput.whole(rt.bucketFile()));
+        }
+    }
+
+    private void recordMapOutput(MapTask task, TaskCounters counters) {
+        lock.lock();
+        try {
+            InputManifest.Entry entry = manifest.get(task.inputFile().getFileName().toString());
+            // a task run again after its commit was lost records the same output twice
+            if (!entry.outputs.contains(task.outputName())) entry.outputs.add(task.outputName());
+            for (int b = 0; b < counters.bucketRecords.length; b++) {
+                if (counters.bucketRecords[b] > 0) entry.buckets.set(b);
             }
+            affectedBuckets.or(entry.buckets);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onTaskFailed(Task task, Exception e) {
+        if (isFinished()) return;
+        metrics.attemptFailed();
+        logger.log(Level.WARNING, "attempt " + task.attempt() + " of " + task.name() + " failed", e);
+        if (!tracker.onFailure(task)) {
+            reportWorkerError(new JobFailedException(task.name() + " failed after " + config.maxAttempts()
+                    + " attempts", e));
         }
+    }
 
-        if (remainingMaps.get() == 0 && !reducePhaseStarted) {
-            lock.lock();
-            try {
-                if (!reducePhaseStarted) {
-                    logger.log(Level.FINE, "all map tasks done, starting reduce phase");
-                    mergeBuckets();
-                    reducePhaseStarted = true;
-                    logger.log(Level.FINE, "reduce phase initialized");
+    // A remote worker was lost between committing an attempt and reporting the task done, so whatever was to
+    // follow the task was never scheduled; the task runs again.
+    void onCommitLost(Task task, TaskCounters counters, Exception e) {
+        if (isFinished()) return;
+        metrics.taskUncommitted(task, counters);
+        metrics.attemptFailed();
+        logger.log(Level.WARNING, "attempt " + task.attempt() + " of " + task.name() + " was lost after commit", e);
+        if (!tracker.reopen(task)) {
+            reportWorkerError(new JobFailedException(task.name() + " failed after " + config.maxAttempts()
+                    + " attempts", e));
+        }
+    }
+
+    @Override
+    public void onMapDone(String outputName) {
+        lock.lock();
+        try {
+            Path file = mapOutputFile(outputName);
+            for (int b = 0; b < numBuckets; b++) {
+                List<ShuffleInput> pending = unmerged.get(b);
+                pending.add(ShuffleInput.partition(file, b));
+                if (pending.size() >= INCREMENTAL_MERGE_FILES && remainingMaps.get() > 1) {
+                    scheduleRun(b);
                 }
-            } catch (IOException e) {
-                logger.log(Level.SEVERE, "failed to merge buckets", e);
-                throw new UncheckedIOException(e);
-            } finally {
-                lock.unlock();
             }
-            return reduceQueue.poll();
+            if (remainingMaps.decrementAndGet() == 0 && runsInFlight.isEmpty()) {
+                scheduleMerges();
+            }
+        } finally {
+            lock.unlock();
         }
+    }
 
-        if (remainingMaps.get() == 0 && reducePhaseStarted && reduceQueue.isEmpty()) {
-            logger.log(Level.FINE, "all work completed, issuing exit signal");
-            return ExitTask.getInstance();
+    @Override
+    public void onMergeDone(int bucketId, Path mergedFile) {
+        lock.lock();
+        try {
+            if (runsInFlight.remove(mergedFile.toAbsolutePath())) {
+                runs.get(bucketId).add(ShuffleInput.whole(mergedFile));
+                if (remainingMaps.get() == 0 && runsInFlight.isEmpty()) {
+                    scheduleMerges();
+                }
+                return;
+            }
+        } finally {
+            lock.unlock();
         }
 
-        logger.log(Level.FINEST, "no task available at the moment");
-        return null;
+        tracker.submit(new ReduceTask(bucketId, mergedFile));
     }
 
-    public void onMapDone() {
-        remainingMaps.decrementAndGet();
+    @Override
+    public void onReduceDone() {
+        if (remainingReduces.decrementAndGet() == 0) {
+            logger.log(Level.FINE, "all work completed, issuing exit signal");
+            complete();
+        }
     }
 
-    public void onReduceDone() {
-        remainingReduces.decrementAndGet();
+    private void complete() {
+        for (int i = 0; i < numWorkers; i++) {
+            taskQueue.add(ExitTask.getInstance());
+        }
+        completion.countDown();
     }
 
     public boolean isFinished() {
-        return errorOccuped || remainingMaps.get() == 0 && remainingReduces.get() == 0 && reduceQueue.isEmpty();
+        return completion.getCount() == 0;
+    }
+
+    boolean succeeded() {
+        return isFinished() && !errorOccuped;
+    }
+
+    // Why the job failed, or null while it has not.
+    public JobFailedException getFailure() {
+        return failure;
     }
 
     public void run() {
-        logger.log(Level.INFO, "starting coordinator with {0} workers and {1} buckets",
-                new Object[]{numWorkers, numBuckets});
+        logger.log(Level.INFO, "starting coordinator with {0} {1} workers and {2} buckets",
+                new Object[]{numWorkers, config.executionMode(), numBuckets});
 
+        metrics.register();
         for (int i = 0; i < numWorkers; i++) {
-            executor.submit(new Worker(this, logic));
+            executor.submit(newWorker(logic));
         }
 
         logger.log(Level.INFO, "all workers submitted, awaiting completion");
 
         try {
-            while (!isFinished()) {
-                Thread.sleep(50);
+            while (!completion.await(MONITOR_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                String exhausted = tracker.checkStragglers(taskQueue.isEmpty());
+                if (exhausted != null) {
+                    reportWorkerError(new JobFailedException(exhausted + " timed out after " + config.maxAttempts()
+                            + " attempts", null));
+                }
             }
 
             logger.log(Level.INFO, "all tasks completed, shutting down worker pool");
-
-            executor.shutdown();
-            if (!executor.awaitTermination(50, TimeUnit.SECONDS)) {
-                logger.log(Level.WARNING, "worker pool did not terminate gracefully, forcing shutdown");
-                executor.shutdownNow();
-            } else {
-                logger.log(Level.INFO, "worker pool shut down successfully");
+            if (memoryShuffle != null) {
+                logger.log(Level.INFO, "kept {0} shuffle outputs in memory, at most {1} bytes at a time",
+                        new Object[]{memoryShuffle.outputCount(), memoryShuffle.peak()});
             }
+            if (manifest != null && !errorOccuped) saveManifest();
+
+            if (ownsExecutor) shutdownExecutor();
         } catch (InterruptedException e) {
             logger.log(Level.WARNING, "coordinator interrupted", e);
             Thread.currentThread().interrupt();
+            stopWorkers();
+        } finally {
+            closeServer();
+            writeSummary();
+            metrics.unregister();
+        }
+    }
+
+    private void shutdownExecutor() throws InterruptedException {
+        if (tracker.inFlight() > 0) {
+            logger.log(Level.FINE, "abandoning {0} losing attempts", tracker.inFlight());
             executor.shutdownNow();
         }
+        executor.shutdown();
+        if (!executor.awaitTermination(50, TimeUnit.SECONDS)) {
+            logger.log(Level.WARNING, "worker pool did not terminate gracefully, forcing shutdown");
+            executor.shutdownNow();
+        } else {
+            logger.log(Level.INFO, "worker pool shut down successfully");
+        }
+    }
+
+    // A shared pool keeps running other stages, so only this job's workers are told to exit; an attempt they are
+    // still busy with finishes and loses its commit.
+    private void stopWorkers() {
+        if (ownsExecutor) {
+            executor.shutdownNow();
+            return;
+        }
+        for (int i = 0; i < numWorkers; i++) {
+            taskQueue.add(ExitTask.getInstance());
+        }
+    }
+
+    private void saveManifest() {
+        try {
+            manifest.save(bucketsDir.resolve(InputManifest.FILE_NAME));
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "failed to save input manifest, the next run recomputes everything", e);
+        }
+    }
+
+    // The summary lands next to the output directory, e.g. tmp/out.summary.json for tmp/out.
+    private void writeSummary() {
+        Path summary = outDir.resolveSibling(outDir.getFileName() + ".summary.json");
+        try {
+            metrics.writeSummary(summary, !errorOccuped, config, numWorkers);
+            logger.log(Level.INFO, "job summary written to {0}", summary);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "failed to write job summary", e);
+        }
     }
 
-    void reportWorkerError(Exception e) {
+    private void closeServer() {
+        if (server == null) return;
+        try {
+            server.close();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "failed to close coordinator server", e);
+        }
+    }
+
+    // The project builds for JDK 17, so virtual threads are looked up reflectively. Without them VIRTUAL is refused
+    // rather than quietly run on platform threads.
+    static ExecutorService newExecutor(ExecutionMode mode, int numWorkers) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new UnsupportedOperationException("the VIRTUAL execution mode needs virtual threads (JDK 21 or "
+                        + "later), this is JDK " + Runtime.version(), e);
+            }
+        }
+        return Executors.newFixedThreadPool(Math.max(1, numWorkers));
+    }
+
+    private <K extends Comparable<K>, V> Worker<K, V> newWorker(WorkerLogic<K, V> logic) {
+        return new Worker<>(this, logic);
+    }
+
+    @Override
+    public void reportWorkerError(Exception e) {
         if (!errorOccuped) {
             lock.lock();
             errorOccuped = true;
+            failure = e instanceof JobFailedException jobFailure
+                    ? jobFailure
+                    : new JobFailedException("worker failed", e);
             logger.log(Level.SEVERE, "worker failed with exception", e);
-            executor.shutdownNow();
+            stopWorkers();
+            completion.countDown();
             lock.unlock();
         }
     }
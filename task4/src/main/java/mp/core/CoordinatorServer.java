@@ -0,0 +1,181 @@
+package mp.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Exposes a Coordinator to workers in other JVMs. Each connection is served by its own thread and behaves
+// like one in-process Worker; when a connection drops or stops heartbeating, the attempts it still holds are
+// reported as failed so the tracker can hand them to someone else. A worker commits a task and reports it done in
+// two requests; a task committed but not yet reported when its connection drops is run again as well.
+public final class CoordinatorServer implements Closeable {
+    private static final Logger logger = Logger.getLogger(CoordinatorServer.class.getName());
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private final Coordinator coordinator;
+    private final byte[] logic;
+    private final ServerSocket serverSocket;
+    private final List<Socket> connections = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    CoordinatorServer(Coordinator coordinator, InetAddress bindAddress, int port) throws IOException {
+        this.coordinator = coordinator;
+        this.logic = Protocol.encodeLogic(coordinator.getLogic());
+        this.serverSocket = new ServerSocket(port, 0, bindAddress);
+
+        Thread acceptor = new Thread(this::acceptLoop, "coordinator-server-" + port());
+        acceptor.setDaemon(true);
+        acceptor.start();
+        logger.log(Level.INFO, "coordinator listening for remote workers on {0}",
+                serverSocket.getLocalSocketAddress());
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        int connectionId = 0;
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread handler = new Thread(() -> serve(socket), "remote-worker-" + connectionId++);
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (!closed) logger.log(Level.WARNING, "failed to accept a remote worker", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Map<String, Task> held = new HashMap<>();
+        // a connection runs one task at a time, so at most one can be committed and not yet reported done
+        Task unreported = null;
+        TaskCounters unreportedCounters = null;
+        String peer = String.valueOf(socket.getRemoteSocketAddress());
+        logger.log(Level.INFO, "remote worker connected from {0}", peer);
+
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setSoTimeout(Protocol.HEARTBEAT_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+
+            while (true) {
+                byte op = in.readByte();
+                switch (op) {
+                    case Protocol.HELLO -> {
+                        Protocol.writeLogic(out, logic);
+                        out.writeUTF(coordinator.getConfig().shuffleFormat().name());
+                        out.writeInt(coordinator.getConfig().mapBufferRecords());
+                        out.writeBoolean(coordinator.getConfig().stageOutput());
+                        Protocol.writePath(out, coordinator.getBucketsDir());
+                        Protocol.writePath(out, coordinator.getMergedDir());
+                        Protocol.writePath(out, coordinator.getOutDir());
+                        Protocol.writePartitioner(out, coordinator.getPartitioner(), coordinator.getLogic());
+                        out.flush();
+                    }
+                    case Protocol.TAKE -> {
+                        Task task = nextTask();
+                        if (task != ExitTask.getInstance()) held.put(key(task), task);
+                        Protocol.writeTask(out, task);
+                        out.flush();
+                    }
+                    case Protocol.COMMIT -> {
+                        Task task = Protocol.readTask(in);
+                        TaskCounters counters = Protocol.readCounters(in);
+                        held.remove(key(task));
+                        boolean committed = coordinator.tryCommit(task, counters);
+                        if (committed) {
+                            unreported = task;
+                            unreportedCounters = counters;
+                        }
+                        out.writeBoolean(committed);
+                        out.flush();
+                    }
+                    case Protocol.FAILED -> {
+                        Task task = Protocol.readTask(in);
+                        String message = in.readUTF();
+                        held.remove(key(task));
+                        coordinator.onTaskFailed(task, new IOException(peer + ": " + message));
+                    }
+                    case Protocol.MAP_DONE -> {
+                        coordinator.onMapDone(in.readUTF());
+                        unreported = null;
+                    }
+                    case Protocol.MERGE_DONE -> {
+                        coordinator.onMergeDone(in.readInt(), Protocol.readPath(in));
+                        unreported = null;
+                    }
+                    case Protocol.REDUCE_DONE -> {
+                        coordinator.onReduceDone();
+                        unreported = null;
+                    }
+                    case Protocol.ERROR -> coordinator.reportWorkerError(new IOException(peer + ": " + in.readUTF()));
+                    case Protocol.HEARTBEAT -> {
+                    }
+                    default -> throw new IOException("unknown opcode " + op + " from " + peer);
+                }
+            }
+        } catch (IOException e) {
+            if ((!held.isEmpty() || unreported != null) && !coordinator.isFinished()) {
+                logger.log(Level.WARNING, "lost remote worker {0} holding {1} tasks: {2}",
+                        new Object[]{peer, held.size(), e.toString()});
+            } else {
+                logger.log(Level.FINE, "remote worker {0} disconnected", peer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            connections.remove(socket);
+            for (Task task : held.values()) {
+                coordinator.onTaskFailed(task, new IOException("remote worker " + peer + " was lost"));
+            }
+            if (unreported != null) {
+                coordinator.onCommitLost(unreported, unreportedCounters,
+                        new IOException("remote worker " + peer + " was lost"));
+            }
+        }
+    }
+
+    // Polls rather than blocks so that a finished job releases remote workers without needing exit tasks.
+    private Task nextTask() throws InterruptedException {
+        while (!closed && !coordinator.isFinished()) {
+            Task task = coordinator.pollTask(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            if (task != null) return task;
+        }
+        return ExitTask.getInstance();
+    }
+
+    private static String key(Task task) {
+        return task.name() + "#" + task.attempt();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "error closing remote worker connection", e);
+            }
+        }
+    }
+}
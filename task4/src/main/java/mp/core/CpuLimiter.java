@@ -0,0 +1,26 @@
+package mp.core;
+
+import java.util.concurrent.Semaphore;
+
+// Bounds how many workers run CPU-bound sections at once, independently of how many workers wait on I/O.
+final class CpuLimiter {
+    static final CpuLimiter UNBOUNDED = new CpuLimiter(null);
+
+    private final Semaphore permits;
+
+    private CpuLimiter(Semaphore permits) {
+        this.permits = permits;
+    }
+
+    static CpuLimiter of(int parallelism) {
+        return new CpuLimiter(new Semaphore(parallelism));
+    }
+
+    void acquire() {
+        if (permits != null) permits.acquireUninterruptibly();
+    }
+
+    void release() {
+        if (permits != null) permits.release();
+    }
+}
@@ -0,0 +1,8 @@
+package mp.core;
+
+public enum ExecutionMode {
+    // One platform thread per worker from a fixed pool.
+    PLATFORM,
+    // One virtual thread per worker; CPU-bound sections are limited to JobConfig.cpuParallelism at a time.
+    VIRTUAL
+}
@@ -0,0 +1,23 @@
+package mp.core;
+
+final class ExitTask extends Task {
+    private static final ExitTask INSTANCE = new ExitTask();
+
+    private ExitTask() {
+        super(0);
+    }
+
+    public static ExitTask getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    String name() {
+        return "exit";
+    }
+
+    @Override
+    ExitTask withAttempt(int attempt) {
+        return this;
+    }
+}
@@ -0,0 +1,138 @@
+package mp.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32C;
+
+// Remembers, per input file, its fingerprint and the map outputs it produced, so an incremental run can reuse
+// the map outputs of inputs that did not change since the last successful run.
+final class InputManifest {
+    private static final Logger logger = Logger.getLogger(InputManifest.class.getName());
+    static final String FILE_NAME = "manifest.properties";
+    private static final String SIGNATURE = "job.signature";
+    private static final String INPUT = "input.";
+    private static final int CHECKSUM_BUFFER_SIZE = 64 * 1024;
+
+    private final String signature;
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    InputManifest(String signature) {
+        this.signature = signature;
+    }
+
+    static final class Entry {
+        final long size;
+        final long modified;
+        final long checksum;
+        final List<String> outputs = new ArrayList<>();
+        final BitSet buckets = new BitSet();
+        boolean reused;
+
+        Entry(long size, long modified, long checksum) {
+            this.size = size;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+
+        static Entry of(Path file) throws IOException {
+            return new Entry(Files.size(file), Files.getLastModifiedTime(file).toMillis(), checksum(file));
+        }
+    }
+
+    // A manifest written for another job shape describes map outputs this job would not produce, so it is ignored.
+    static InputManifest load(Path file, String signature) throws IOException {
+        InputManifest manifest = new InputManifest(signature);
+        if (!Files.exists(file)) return manifest;
+
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        if (!signature.equals(props.getProperty(SIGNATURE))) {
+            logger.log(Level.INFO, "manifest {0} belongs to a different job, recomputing all inputs", file);
+            return manifest;
+        }
+        for (String key : props.stringPropertyNames()) {
+            if (!key.startsWith(INPUT) || !key.endsWith(".size")) continue;
+            String name = key.substring(INPUT.length(), key.length() - ".size".length());
+            String prefix = INPUT + name;
+            Entry entry = new Entry(Long.parseLong(props.getProperty(prefix + ".size")),
+                    Long.parseLong(props.getProperty(prefix + ".modified")),
+                    Long.parseLong(props.getProperty(prefix + ".checksum")));
+            String outputs = props.getProperty(prefix + ".outputs", "");
+            if (!outputs.isEmpty()) entry.outputs.addAll(Arrays.asList(outputs.split("/")));
+            String buckets = props.getProperty(prefix + ".buckets", "");
+            if (!buckets.isEmpty()) {
+                for (String b : buckets.split(",")) entry.buckets.set(Integer.parseInt(b));
+            }
+            manifest.entries.put(name, entry);
+        }
+        return manifest;
+    }
+
+    void save(Path file) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(SIGNATURE, signature);
+        entries.forEach((name, entry) -> {
+            String prefix = INPUT + name;
+            props.setProperty(prefix + ".size", Long.toString(entry.size));
+            props.setProperty(prefix + ".modified", Long.toString(entry.modified));
+            props.setProperty(prefix + ".checksum", Long.toString(entry.checksum));
+            // file names cannot contain a slash, so it is a safe separator for the output names
+            props.setProperty(prefix + ".outputs", String.join("/", entry.outputs));
+            props.setProperty(prefix + ".buckets", entry.buckets.stream().mapToObj(Integer::toString)
+                    .collect(Collectors.joining(",")));
+        });
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            props.store(out, null);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    Entry get(String name) {
+        return entries.get(name);
+    }
+
+    void put(String name, Entry entry) {
+        entries.put(name, entry);
+    }
+
+    Map<String, Entry> entries() {
+        return entries;
+    }
+
+    // Size and modification time settle most files without reading them; a touched file is only re-read to
+    // compare its checksum.
+    static boolean unchanged(Path file, Entry previous) throws IOException {
+        if (previous == null || Files.size(file) != previous.size) return false;
+        if (Files.getLastModifiedTime(file).toMillis() == previous.modified) return true;
+        return checksum(file) == previous.checksum;
+    }
+
+    static long checksum(Path file) throws IOException {
+        CRC32C crc = new CRC32C();
+        byte[] buffer = new byte[CHECKSUM_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) crc.update(buffer, 0, n);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,118 @@
+package mp.core;
+
+import mp.io.ShuffleFormat;
+
+import java.time.Duration;
+import java.util.Objects;
+
+public record JobConfig(ShuffleFormat shuffleFormat, long splitSize, ExecutionMode executionMode,
+                        int cpuParallelism, Duration taskTimeout, int maxAttempts, boolean speculativeExecution,
+                        Partitioning partitioning, boolean incremental, int mapBufferRecords,
+                        long shuffleMemoryBytes, boolean stageOutput) {
+    public static final long DEFAULT_SPLIT_SIZE = 64L * 1024 * 1024;
+    public static final Duration DEFAULT_TASK_TIMEOUT = Duration.ofMinutes(10);
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    // Records a map task holds in memory before it sorts them and spills a run to disk.
+    public static final int DEFAULT_MAP_BUFFER_RECORDS = 1 << 20;
+    // Heap the shuffle may take before outputs go to disk; zero keeps every output on disk.
+    public static final long DEFAULT_SHUFFLE_MEMORY_BYTES = 0;
+
+    public JobConfig {
+        Objects.requireNonNull(shuffleFormat, "shuffleFormat");
+        Objects.requireNonNull(executionMode, "executionMode");
+        Objects.requireNonNull(taskTimeout, "taskTimeout");
+        Objects.requireNonNull(partitioning, "partitioning");
+        if (splitSize <= 0) throw new IllegalArgumentException("splitSize must be positive: " + splitSize);
+        if (cpuParallelism <= 0) throw new IllegalArgumentException("cpuParallelism must be positive: " + cpuParallelism);
+        if (taskTimeout.isNegative() || taskTimeout.isZero()) {
+            throw new IllegalArgumentException("taskTimeout must be positive: " + taskTimeout);
+        }
+        if (maxAttempts <= 0) throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        if (mapBufferRecords <= 0) {
+            throw new IllegalArgumentException("mapBufferRecords must be positive: " + mapBufferRecords);
+        }
+        if (shuffleMemoryBytes < 0) {
+            throw new IllegalArgumentException("shuffleMemoryBytes must not be negative: " + shuffleMemoryBytes);
+        }
+    }
+
+    public static JobConfig defaults() {
+        return new JobConfig(ShuffleFormat.BINARY, DEFAULT_SPLIT_SIZE, ExecutionMode.PLATFORM,
+                Runtime.getRuntime().availableProcessors(), DEFAULT_TASK_TIMEOUT, DEFAULT_MAX_ATTEMPTS, true,
+                Partitioning.HASH, false, DEFAULT_MAP_BUFFER_RECORDS, DEFAULT_SHUFFLE_MEMORY_BYTES,
+                false);
+    }
+
+    public JobConfig withShuffleFormat(ShuffleFormat shuffleFormat) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withSplitSize(long splitSize) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withExecutionMode(ExecutionMode executionMode) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withCpuParallelism(int cpuParallelism) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withTaskTimeout(Duration taskTimeout) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withMaxAttempts(int maxAttempts) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withSpeculativeExecution(boolean speculativeExecution) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withPartitioning(Partitioning partitioning) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withIncremental(boolean incremental) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withMapBufferRecords(int mapBufferRecords) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    public JobConfig withShuffleMemoryBytes(long shuffleMemoryBytes) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+
+    // Reduce output goes to another stage of a JobGraph as binary records rather than to text files.
+    public JobConfig withStageOutput(boolean stageOutput) {
+        return new JobConfig(shuffleFormat, splitSize, executionMode, cpuParallelism, taskTimeout, maxAttempts,
+                speculativeExecution, partitioning, incremental, mapBufferRecords, shuffleMemoryBytes,
+                stageOutput);
+    }
+}
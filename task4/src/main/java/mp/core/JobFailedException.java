@@ -0,0 +1,10 @@
+package mp.core;
+
+import java.io.IOException;
+
+// A job that gave up: a task failed or timed out on every attempt it was allowed, or a worker crashed.
+public class JobFailedException extends IOException {
+    public JobFailedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
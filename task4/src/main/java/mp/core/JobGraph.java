@@ -0,0 +1,147 @@
+package mp.core;
+
+import mp.logic.ChainedLogic;
+import mp.logic.WorkerLogic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Several MapReduce stages run as one job. A stage maps either a directory of text files or the reduce output of
+// the stages it depends on, which those stages keep as binary records of their key and value types instead of
+// text, one file per reduce bucket, and hand to a ChainedLogic as they are. Every stage starts as soon as its
+// inputs are complete, so independent stages run at the same time; all of them share one worker pool and one CPU
+// budget. Stage files go to <workDir>/<stage>/{buckets,merged,out}.
+public class JobGraph {
+    private static final Logger logger = Logger.getLogger(JobGraph.class.getName());
+    private final Path workDir;
+    private final int numWorkers;
+    private final JobConfig config;
+    private final List<Stage> stages = new ArrayList<>();
+
+    public JobGraph(Path workDir, int numWorkers, JobConfig config) {
+        this.workDir = workDir;
+        this.numWorkers = numWorkers;
+        this.config = config;
+    }
+
+    public Stage source(String name, WorkerLogic<?, ?> logic, int numBuckets, Path inputDir) {
+        if (logic instanceof ChainedLogic) {
+            throw new IllegalArgumentException("stage " + name + " maps the records of earlier stages, not text");
+        }
+        return add(new Stage(name, logic, numBuckets, inputDir, List.of()));
+    }
+
+    public Stage stage(String name, ChainedLogic<?, ?, ?, ?> logic, int numBuckets, Stage... upstream) {
+        if (upstream.length == 0) throw new IllegalArgumentException("stage " + name + " has no input");
+        for (Stage stage : upstream) {
+            if (!stages.contains(stage)) throw new IllegalArgumentException(stage.name + " is not part of this job");
+            if (!logic.inputKeySerializer().equals(stage.logic.keySerializer())
+                    || !logic.inputValueSerializer().equals(stage.logic.valueSerializer())) {
+                throw new IllegalArgumentException("stage " + name + " cannot map the records of " + stage.name
+                        + ": its input serializers differ from the key and value serializers of "
+                        + stage.logic.getClass().getName());
+            }
+        }
+        return add(new Stage(name, logic, numBuckets, null, List.of(upstream)));
+    }
+
+    private Stage add(Stage stage) {
+        if (stages.stream().anyMatch(s -> s.name.equals(stage.name))) {
+            throw new IllegalArgumentException("duplicate stage name: " + stage.name);
+        }
+        stages.add(stage);
+        return stage;
+    }
+
+    // Stages can only depend on stages added before them, so the list is already in a valid order.
+    public void run() throws IOException, InterruptedException {
+        if (config.incremental()) {
+            logger.log(Level.WARNING, "incremental runs are not supported across stages, recomputing every stage");
+        }
+        // every stage may run at once, each with a thread waiting on its coordinator and numWorkers workers
+        ExecutorService pool = Coordinator.newExecutor(config.executionMode(), stages.size() * (numWorkers + 1));
+        CpuLimiter cpu = CpuLimiter.of(config.cpuParallelism());
+
+        Map<Stage, CompletableFuture<Void>> done = new HashMap<>();
+        try {
+            for (Stage stage : stages) {
+                CompletableFuture<?>[] inputs = stage.upstream.stream().map(done::get)
+                        .toArray(CompletableFuture[]::new);
+                done.put(stage, CompletableFuture.allOf(inputs).thenRunAsync(() -> runStage(stage, pool, cpu), pool));
+            }
+            CompletableFuture.allOf(done.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) throw io.getCause();
+            throw e;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void runStage(Stage stage, ExecutorService pool, CpuLimiter cpu) {
+        boolean feedsOthers = stages.stream().anyMatch(s -> s.upstream.contains(stage));
+        Path dir = stage.dir();
+        logger.log(Level.INFO, "starting stage {0}", stage.name);
+        try {
+            List<Path> inputs = new ArrayList<>();
+            if (stage.inputDir != null) {
+                inputs.addAll(Coordinator.listInputs(stage.inputDir));
+            }
+            for (Stage upstream : stage.upstream) {
+                for (int b = 0; b < upstream.numBuckets; b++) {
+                    inputs.add(ShuffleFiles.stageOutputFile(upstream.outDir(), b));
+                }
+            }
+
+            Coordinator coordinator = new Coordinator(stage.logic, inputs, dir.resolve("buckets"),
+                    dir.resolve("merged"), stage.outDir(), numWorkers, stage.numBuckets,
+                    config.withIncremental(false).withStageOutput(feedsOthers), pool, cpu);
+            coordinator.run();
+            if (!coordinator.succeeded()) {
+                throw new JobFailedException("stage " + stage.name + " failed", coordinator.getFailure());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        logger.log(Level.INFO, "stage {0} completed", stage.name);
+    }
+
+    public final class Stage {
+        private final String name;
+        private final WorkerLogic<?, ?> logic;
+        private final int numBuckets;
+        private final Path inputDir;
+        private final List<Stage> upstream;
+
+        private Stage(String name, WorkerLogic<?, ?> logic, int numBuckets, Path inputDir, List<Stage> upstream) {
+            this.name = name;
+            this.logic = logic;
+            this.numBuckets = numBuckets;
+            this.inputDir = inputDir;
+            this.upstream = upstream;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        private Path dir() {
+            return workDir.resolve(name);
+        }
+
+        // Text files for a stage nothing depends on, binary records otherwise.
+        public Path outDir() {
+            return dir().resolve("out");
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package mp.core;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Counters and latency histograms of one job. Workers report what each committed attempt read and wrote,
+// the task tracker reports how long it ran; everything is aggregated with adders so recording never contends.
+public final class JobMetrics implements JobMetricsMXBean {
+    private static final Logger logger = Logger.getLogger(JobMetrics.class.getName());
+    private static final AtomicInteger JOB_IDS = new AtomicInteger();
+
+    private final Phase map = new Phase();
+    private final Phase merge = new Phase();
+    private final Phase reduce = new Phase();
+    private final AtomicLongArray partitionBytes;
+    private final AtomicLongArray partitionRecords;
+    private final LongAdder taskWaitNanos = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder relaunchedAttempts = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private ObjectName objectName;
+
+    JobMetrics(int numBuckets) {
+        this.partitionBytes = new AtomicLongArray(numBuckets);
+        this.partitionRecords = new AtomicLongArray(numBuckets);
+    }
+
+    void taskCommitted(Task task, TaskCounters counters) {
+        Phase phase = phaseOf(task);
+        if (phase == null) return;
+        phase.tasks.increment();
+        phase.recordsIn.add(counters.recordsIn);
+        phase.recordsOut.add(counters.recordsOut);
+        phase.bytesIn.add(counters.bytesIn);
+        phase.bytesOut.add(counters.bytesOut);
+        taskWaitNanos.add(counters.waitNanos);
+
+        if (task instanceof MapTask) {
+            for (int b = 0; b < Math.min(counters.bucketBytes.length, partitionBytes.length()); b++) {
+                partitionBytes.addAndGet(b, counters.bucketBytes[b]);
+                partitionRecords.addAndGet(b, counters.bucketRecords[b]);
+            }
+        }
+    }
+
+    void taskUncommitted(Task task, TaskCounters counters) {
+        Phase phase = phaseOf(task);
+        if (phase == null) return;
+        phase.tasks.decrement();
+        phase.recordsIn.add(-counters.recordsIn);
+        phase.recordsOut.add(-counters.recordsOut);
+        phase.bytesIn.add(-counters.bytesIn);
+        phase.bytesOut.add(-counters.bytesOut);
+        taskWaitNanos.add(-counters.waitNanos);
+
+        if (task instanceof MapTask) {
+            for (int b = 0; b < Math.min(counters.bucketBytes.length, partitionBytes.length()); b++) {
+                partitionBytes.addAndGet(b, -counters.bucketBytes[b]);
+                partitionRecords.addAndGet(b, -counters.bucketRecords[b]);
+            }
+        }
+    }
+
+    void taskDuration(Task task, long nanos) {
+        Phase phase = phaseOf(task);
+        if (phase != null) phase.durations.record(nanos);
+    }
+
+    void attemptFailed() {
+        failedAttempts.increment();
+    }
+
+    void attemptRelaunched() {
+        relaunchedAttempts.increment();
+    }
+
+    private Phase phaseOf(Task task) {
+        if (task instanceof MapTask) return map;
+        if (task instanceof MergeTask) return merge;
+        if (task instanceof ReduceTask) return reduce;
+        return null;
+    }
+
+    @Override
+    public PhaseMetrics getMap() {
+        return map.snapshot();
+    }
+
+    @Override
+    public PhaseMetrics getMerge() {
+        return merge.snapshot();
+    }
+
+    @Override
+    public PhaseMetrics getReduce() {
+        return reduce.snapshot();
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    @Override
+    public long getTaskWaitMillis() {
+        return taskWaitNanos.sum() / 1_000_000;
+    }
+
+    @Override
+    public long getFailedAttempts() {
+        return failedAttempts.sum();
+    }
+
+    @Override
+    public long getRelaunchedAttempts() {
+        return relaunchedAttempts.sum();
+    }
+
+    @Override
+    public long[] getPartitionBytes() {
+        return toArray(partitionBytes);
+    }
+
+    @Override
+    public long[] getPartitionRecords() {
+        return toArray(partitionRecords);
+    }
+
+    @Override
+    public double getPartitionSkew() {
+        long[] bytes = getPartitionBytes();
+        long max = 0;
+        long total = 0;
+        for (long b : bytes) {
+            max = Math.max(max, b);
+            total += b;
+        }
+        return total == 0 ? 1.0 : max / ((double) total / bytes.length);
+    }
+
+    void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName("mp:type=JobMetrics,name=job-" + JOB_IDS.incrementAndGet());
+            server.registerMBean(this, objectName);
+            logger.log(Level.FINE, "job metrics registered as {0}", objectName);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "could not register job metrics MBean", e);
+            objectName = null;
+        }
+    }
+
+    void unregister() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            logger.log(Level.FINE, "could not unregister job metrics MBean", e);
+        }
+        objectName = null;
+    }
+
+    ObjectName objectName() {
+        return objectName;
+    }
+
+    // One JSON object: job outcome, one entry per phase, job-wide counters and the size of every partition.
+    void writeSummary(Path file, boolean succeeded, JobConfig config, int numWorkers) throws IOException {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n");
+        json.append("  \"status\": \"").append(succeeded ? "succeeded" : "failed").append("\",\n");
+        json.append("  \"elapsedMillis\": ").append(getElapsedMillis()).append(",\n");
+        json.append("  \"workers\": ").append(numWorkers).append(",\n");
+        json.append("  \"buckets\": ").append(partitionBytes.length()).append(",\n");
+        json.append("  \"shuffleFormat\": \"").append(config.shuffleFormat()).append("\",\n");
+        json.append("  \"executionMode\": \"").append(config.executionMode()).append("\",\n");
+        json.append("  \"phases\": {\n");
+        appendPhase(json, "map", getMap()).append(",\n");
+        appendPhase(json, "merge", getMerge()).append(",\n");
+        appendPhase(json, "reduce", getReduce()).append("\n");
+        json.append("  },\n");
+        json.append("  \"taskWaitMillis\": ").append(getTaskWaitMillis()).append(",\n");
+        json.append("  \"failedAttempts\": ").append(getFailedAttempts()).append(",\n");
+        json.append("  \"relaunchedAttempts\": ").append(getRelaunchedAttempts()).append(",\n");
+        json.append("  \"partitionSkew\": ").append(decimal(getPartitionSkew())).append(",\n");
+        json.append("  \"partitions\": [");
+        long[] bytes = getPartitionBytes();
+        long[] records = getPartitionRecords();
+        for (int b = 0; b < bytes.length; b++) {
+            json.append(b == 0 ? "\n" : ",\n");
+            json.append("    {\"bucket\": ").append(b)
+                    .append(", \"bytes\": ").append(bytes[b])
+                    .append(", \"records\": ").append(records[b]).append('}');
+        }
+        json.append(bytes.length == 0 ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.writeString(file, json);
+    }
+
+    private static StringBuilder appendPhase(StringBuilder json, String name, PhaseMetrics phase) {
+        return json.append("    \"").append(name).append("\": {")
+                .append("\"tasks\": ").append(phase.getTasks())
+                .append(", \"recordsIn\": ").append(phase.getRecordsIn())
+                .append(", \"recordsOut\": ").append(phase.getRecordsOut())
+                .append(", \"bytesIn\": ").append(phase.getBytesIn())
+                .append(", \"bytesOut\": ").append(phase.getBytesOut())
+                .append(", \"totalMillis\": ").append(decimal(phase.getTotalMillis()))
+                .append(", \"p50Millis\": ").append(decimal(phase.getP50Millis()))
+                .append(", \"p95Millis\": ").append(decimal(phase.getP95Millis()))
+                .append(", \"p99Millis\": ").append(decimal(phase.getP99Millis()))
+                .append(", \"maxMillis\": ").append(decimal(phase.getMaxMillis()))
+                .append('}');
+    }
+
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static long[] toArray(AtomicLongArray array) {
+        long[] values = new long[array.length()];
+        for (int i = 0; i < values.length; i++) values[i] = array.get(i);
+        return values;
+    }
+
+    private static final class Phase {
+        private final LongAdder tasks = new LongAdder();
+        private final LongAdder recordsIn = new LongAdder();
+        private final LongAdder recordsOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LatencyHistogram durations = new LatencyHistogram();
+
+        PhaseMetrics snapshot() {
+            return new PhaseMetrics(tasks.sum(), recordsIn.sum(), recordsOut.sum(), bytesIn.sum(), bytesOut.sum(),
+                    durations);
+        }
+    }
+}
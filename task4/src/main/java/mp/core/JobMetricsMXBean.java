@@ -0,0 +1,24 @@
+package mp.core;
+
+public interface JobMetricsMXBean {
+    PhaseMetrics getMap();
+
+    PhaseMetrics getMerge();
+
+    PhaseMetrics getReduce();
+
+    long getElapsedMillis();
+
+    long getTaskWaitMillis();
+
+    long getFailedAttempts();
+
+    long getRelaunchedAttempts();
+
+    long[] getPartitionBytes();
+
+    long[] getPartitionRecords();
+
+    // Largest partition over the mean partition, by bytes; 1.0 means perfectly even.
+    double getPartitionSkew();
+}
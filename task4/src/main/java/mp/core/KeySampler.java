@@ -0,0 +1,43 @@
+package mp.core;
+
+import mp.logic.WorkerLogic;
+import mp.model.KeyValue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Estimates how often each key occurs by running map over a few short windows spread across every split,
+// reading about SAMPLE_LINES lines in total however large the input is.
+final class KeySampler {
+    static final int SAMPLE_LINES = 20_000;
+    private static final int WINDOWS_PER_SPLIT = 4;
+
+    private KeySampler() {
+    }
+
+    static <K extends Comparable<K>, V> Map<K, Long> sample(WorkerLogic<K, V> logic, List<MapTask> maps)
+            throws IOException {
+        Map<K, Long> counts = new HashMap<>();
+        if (maps.isEmpty()) return counts;
+
+        int linesPerWindow = Math.max(4, SAMPLE_LINES / (maps.size() * WINDOWS_PER_SPLIT));
+        for (MapTask map : maps) {
+            int windows = ShuffleFiles.isStageOutput(map.inputFile()) ? 1 : WINDOWS_PER_SPLIT;
+            long window = Math.max(1, map.length() / windows);
+            for (int w = 0; w < windows && w * window < map.length(); w++) {
+                try (MapInput<K, V> input = MapInput.open(map, logic, map.start() + w * window, window)) {
+                    List<KeyValue<K, V>> emitted = new ArrayList<>();
+                    input.read(linesPerWindow);
+                    input.map(emitted);
+                    for (KeyValue<K, V> kv : emitted) {
+                        counts.merge(kv.key(), 1L, Long::sum);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+}
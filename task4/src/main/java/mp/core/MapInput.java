@@ -0,0 +1,100 @@
+package mp.core;
+
+import mp.io.LineReader;
+import mp.io.RecordReader;
+import mp.io.ShuffleFormat;
+import mp.logic.ChainedLogic;
+import mp.logic.WorkerLogic;
+import mp.model.KeyValue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// The input of a map task, read in batches so that reading needs no CPU permit and mapping a batch holds one.
+// Text is read as lines and mapped with map(String); the output of an earlier JobGraph stage is read as the typed
+// records that stage reduced to and mapped with ChainedLogic.map(key, value).
+abstract class MapInput<K extends Comparable<K>, V> implements Closeable {
+
+    // Reads up to max inputs and returns how many, 0 once the input is exhausted.
+    abstract int read(int max) throws IOException;
+
+    // Maps the inputs of the last read into out.
+    abstract void map(List<KeyValue<K, V>> out);
+
+    static <K extends Comparable<K>, V> MapInput<K, V> open(MapTask task, WorkerLogic<K, V> logic, long from,
+                                                            long length) throws IOException {
+        if (!ShuffleFiles.isStageOutput(task.inputFile())) return new Lines<>(task.open(from, length), logic);
+        if (!(logic instanceof ChainedLogic<?, ?, K, V> chained)) {
+            throw new IOException(logic.getClass().getName() + " cannot map the output of an earlier stage, "
+                    + task.inputFile());
+        }
+        return records(task, chained);
+    }
+
+    private static <IK, IV, K extends Comparable<K>, V> MapInput<K, V> records(MapTask task,
+                                                                               ChainedLogic<IK, IV, K, V> logic)
+            throws IOException {
+        return new Records<>(ShuffleFormat.BINARY.newReader(task.inputFile(), logic.inputKeySerializer(),
+                logic.inputValueSerializer()), logic);
+    }
+
+    private static final class Lines<K extends Comparable<K>, V> extends MapInput<K, V> {
+        private final LineReader reader;
+        private final WorkerLogic<K, V> logic;
+        private final List<String> batch = new ArrayList<>();
+
+        Lines(LineReader reader, WorkerLogic<K, V> logic) {
+            this.reader = reader;
+            this.logic = logic;
+        }
+
+        @Override
+        int read(int max) throws IOException {
+            batch.clear();
+            String line;
+            while (batch.size() < max && (line = reader.readLine()) != null) batch.add(line);
+            return batch.size();
+        }
+
+        @Override
+        void map(List<KeyValue<K, V>> out) {
+            for (String line : batch) out.addAll(logic.map(line));
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    private static final class Records<IK, IV, K extends Comparable<K>, V> extends MapInput<K, V> {
+        private final RecordReader<IK, IV> reader;
+        private final ChainedLogic<IK, IV, K, V> logic;
+        private final List<KeyValue<IK, IV>> batch = new ArrayList<>();
+
+        Records(RecordReader<IK, IV> reader, ChainedLogic<IK, IV, K, V> logic) {
+            this.reader = reader;
+            this.logic = logic;
+        }
+
+        @Override
+        int read(int max) throws IOException {
+            batch.clear();
+            KeyValue<IK, IV> kv;
+            while (batch.size() < max && (kv = reader.next()) != null) batch.add(kv);
+            return batch.size();
+        }
+
+        @Override
+        void map(List<KeyValue<K, V>> out) {
+            for (KeyValue<IK, IV> kv : batch) out.addAll(logic.map(kv.key(), kv.value()));
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
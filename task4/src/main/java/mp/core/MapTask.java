@@ -0,0 +1,63 @@
+package mp.core;
+
+import mp.io.LineReader;
+import mp.io.SplitLineReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+final class MapTask extends Task {
+    private final Path inputFile;
+    private final long start;
+    private final long length;
+    private final String outputName;
+    private final int bucketCount;
+
+    public MapTask(Path inputFile, long start, long length, String outputName, int bucketCount) {
+        this(inputFile, start, length, outputName, bucketCount, 0);
+    }
+
+    private MapTask(Path inputFile, long start, long length, String outputName, int bucketCount, int attempt) {
+        super(attempt);
+        this.inputFile = inputFile;
+        this.start = start;
+        this.length = length;
+        this.outputName = outputName;
+        this.bucketCount = bucketCount;
+    }
+
+    public Path inputFile() {
+        return inputFile;
+    }
+
+    public long start() {
+        return start;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public String outputName() {
+        return outputName;
+    }
+
+    public int bucketCount() {
+        return bucketCount;
+    }
+
+    // Reads the lines owned by [from, from + length) of a text input; see MapInput for the output of a stage.
+    LineReader open(long from, long length) throws IOException {
+        return new SplitLineReader(inputFile, from, length);
+    }
+
+    @Override
+    String name() {
+        return "map-" + outputName;
+    }
+
+    @Override
+    MapTask withAttempt(int attempt) {
+        return new MapTask(inputFile, start, length, outputName, bucketCount, attempt);
+    }
+}
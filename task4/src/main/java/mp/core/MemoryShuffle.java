@@ -0,0 +1,88 @@
+package mp.core;
+
+import mp.io.MemoryRun;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Shuffle outputs kept on the heap for jobs that fit in memory. An output is published under the path it would
+// have had on disk, so readers look here first and fall back to the file, and the task graph does not change.
+// An attempt reserves its bytes before it commits and hands them back if it loses. Every run is read by exactly
+// one task, so a published run keeps its share of the budget until the task reading it commits.
+final class MemoryShuffle {
+    private final long budget;
+    private final AtomicLong used = new AtomicLong();
+    private final AtomicLong peak = new AtomicLong();
+    private final AtomicInteger published = new AtomicInteger();
+    private final Map<Path, MemoryRun[]> outputs = new ConcurrentHashMap<>();
+
+    MemoryShuffle(long budget) {
+        this.budget = budget;
+    }
+
+    boolean tryReserve(long bytes) {
+        long current;
+        do {
+            current = used.get();
+            if (current + bytes > budget) return false;
+        } while (!used.compareAndSet(current, current + bytes));
+        peak.accumulateAndGet(current + bytes, Math::max);
+        return true;
+    }
+
+    void release(long bytes) {
+        used.addAndGet(-bytes);
+    }
+
+    long used() {
+        return used.get();
+    }
+
+    long peak() {
+        return peak.get();
+    }
+
+    // A whole-file output is a single run, a map output one run per partition.
+    void publish(Path output, List<MemoryRun> runs) {
+        outputs.put(key(output), runs.toArray(new MemoryRun[0]));
+        published.incrementAndGet();
+    }
+
+    // Null when the input was written to disk or has already been consumed.
+    MemoryRun find(ShuffleInput input) {
+        MemoryRun[] runs = outputs.get(key(input.file()));
+        return runs == null ? null : runs[index(input)];
+    }
+
+    // Drops an input whose reader has committed and returns its bytes to the budget; an input on disk is ignored.
+    void consumed(ShuffleInput input) {
+        outputs.computeIfPresent(key(input.file()), (path, runs) -> {
+            int index = index(input);
+            if (runs[index] != null) {
+                release(runs[index].size());
+                runs[index] = null;
+            }
+            for (MemoryRun run : runs) {
+                if (run != null) return runs;
+            }
+            return null;
+        });
+    }
+
+    // Outputs published over the whole job, consumed or not.
+    int outputCount() {
+        return published.get();
+    }
+
+    private static int index(ShuffleInput input) {
+        return input.isWholeFile() ? 0 : input.partition();
+    }
+
+    private static Path key(Path output) {
+        return output.toAbsolutePath().normalize();
+    }
+}
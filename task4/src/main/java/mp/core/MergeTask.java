@@ -0,0 +1,44 @@
+package mp.core;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// Merges the given sorted inputs into output: either an incremental run of one bucket, or the bucket's final file.
+final class MergeTask extends Task {
+    private final int id;
+    private final List<ShuffleInput> inputs;
+    private final Path output;
+
+    public MergeTask(int id, List<ShuffleInput> inputs, Path output) {
+        this(id, inputs, output, 0);
+    }
+
+    private MergeTask(int id, List<ShuffleInput> inputs, Path output, int attempt) {
+        super(attempt);
+        this.id = id;
+        this.inputs = List.copyOf(inputs);
+        this.output = output;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public List<ShuffleInput> inputs() {
+        return inputs;
+    }
+
+    public Path output() {
+        return output;
+    }
+
+    @Override
+    String name() {
+        return "merge-" + output.getFileName();
+    }
+
+    @Override
+    MergeTask withAttempt(int attempt) {
+        return new MergeTask(id, inputs, output, attempt);
+    }
+}
@@ -0,0 +1,8 @@
+package mp.core;
+
+// How map output is spread over buckets: by the logic's own partitioner, hashing by default, or by a
+// partitioner balanced on key frequencies sampled from the input before the maps start.
+public enum Partitioning {
+    HASH,
+    SAMPLING
+}
@@ -0,0 +1,68 @@
+package mp.core;
+
+// Snapshot of one phase, as exposed over JMX.
+public final class PhaseMetrics {
+    private final long tasks;
+    private final long recordsIn;
+    private final long recordsOut;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final double totalMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    PhaseMetrics(long tasks, long recordsIn, long recordsOut, long bytesIn, long bytesOut, LatencyHistogram durations) {
+        this.tasks = tasks;
+        this.recordsIn = recordsIn;
+        this.recordsOut = recordsOut;
+        this.bytesIn = bytesIn;
+        this.bytesOut = bytesOut;
+        this.totalMillis = durations.totalMillis();
+        this.p50Millis = durations.percentileMillis(0.50);
+        this.p95Millis = durations.percentileMillis(0.95);
+        this.p99Millis = durations.percentileMillis(0.99);
+        this.maxMillis = durations.maxMillis();
+    }
+
+    public long getTasks() {
+        return tasks;
+    }
+
+    public long getRecordsIn() {
+        return recordsIn;
+    }
+
+    public long getRecordsOut() {
+        return recordsOut;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public double getTotalMillis() {
+        return totalMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP95Millis() {
+        return p95Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+}
@@ -0,0 +1,232 @@
+package mp.core;
+
+import mp.logic.Partitioner;
+import mp.logic.SamplingPartitioner;
+import mp.logic.WorkerLogic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Wire format between CoordinatorServer and RemoteCoordinator: every request is an opcode byte followed by
+// its arguments; tasks are a tag byte, the attempt number and the task's fields. Paths travel as absolute
+// strings, so shuffle files must live on a directory every worker can reach.
+final class Protocol {
+    static final byte HELLO = 1;
+    static final byte TAKE = 2;
+    static final byte COMMIT = 3;
+    static final byte FAILED = 4;
+    static final byte MAP_DONE = 5;
+    static final byte MERGE_DONE = 6;
+    static final byte REDUCE_DONE = 7;
+    static final byte ERROR = 8;
+    static final byte HEARTBEAT = 9;
+
+    static final long HEARTBEAT_INTERVAL_MS = 1000;
+    // A worker that has been silent this long is considered dead and its attempts are rescheduled.
+    static final int HEARTBEAT_TIMEOUT_MS = 5000;
+
+    private static final byte EXIT_TASK = 0;
+    private static final byte MAP_TASK = 1;
+    private static final byte MERGE_TASK = 2;
+    private static final byte REDUCE_TASK = 3;
+
+    private static final byte LOGIC_CLASS = 0;
+    private static final byte LOGIC_INSTANCE = 1;
+
+    private Protocol() {
+    }
+
+    static void writeTask(DataOutput out, Task task) throws IOException {
+        if (task instanceof MapTask mt) {
+            out.writeByte(MAP_TASK);
+            out.writeInt(mt.attempt());
+            writePath(out, mt.inputFile());
+            out.writeLong(mt.start());
+            out.writeLong(mt.length());
+            out.writeUTF(mt.outputName());
+            out.writeInt(mt.bucketCount());
+        } else if (task instanceof MergeTask mt) {
+            out.writeByte(MERGE_TASK);
+            out.writeInt(mt.attempt());
+            out.writeInt(mt.id());
+            out.writeInt(mt.inputs().size());
+            for (ShuffleInput input : mt.inputs()) {
+                writePath(out, input.file());
+                out.writeInt(input.partition());
+            }
+            writePath(out, mt.output());
+        } else if (task instanceof ReduceTask rt) {
+            out.writeByte(REDUCE_TASK);
+            out.writeInt(rt.attempt());
+            out.writeInt(rt.id());
+            writePath(out, rt.bucketFile());
+        } else {
+            out.writeByte(EXIT_TASK);
+        }
+    }
+
+    static Task readTask(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        if (tag == EXIT_TASK) return ExitTask.getInstance();
+
+        int attempt = in.readInt();
+        return switch (tag) {
+            case MAP_TASK -> new MapTask(readPath(in), in.readLong(), in.readLong(), in.readUTF(), in.readInt())
+                    .withAttempt(attempt);
+            case MERGE_TASK -> readMergeTask(in).withAttempt(attempt);
+            case REDUCE_TASK -> new ReduceTask(in.readInt(), readPath(in)).withAttempt(attempt);
+            default -> throw new IOException("unknown task tag " + tag);
+        };
+    }
+
+    private static MergeTask readMergeTask(DataInput in) throws IOException {
+        int id = in.readInt();
+        List<ShuffleInput> inputs = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) inputs.add(new ShuffleInput(readPath(in), in.readInt()));
+        return new MergeTask(id, inputs, readPath(in));
+    }
+
+    static void writeCounters(DataOutput out, TaskCounters counters) throws IOException {
+        out.writeLong(counters.recordsIn);
+        out.writeLong(counters.bytesIn);
+        out.writeLong(counters.waitNanos);
+        out.writeInt(counters.bucketRecords.length);
+        for (int b = 0; b < counters.bucketRecords.length; b++) {
+            out.writeLong(counters.bucketRecords[b]);
+            out.writeLong(counters.bucketBytes[b]);
+        }
+        // merge and reduce outputs are not per bucket, so the totals travel separately
+        out.writeLong(counters.recordsOut);
+        out.writeLong(counters.bytesOut);
+    }
+
+    static TaskCounters readCounters(DataInput in) throws IOException {
+        TaskCounters counters = new TaskCounters();
+        counters.recordsIn = in.readLong();
+        counters.bytesIn = in.readLong();
+        counters.waitNanos = in.readLong();
+        for (int b = 0, buckets = in.readInt(); b < buckets; b++) {
+            counters.bucket(b, in.readLong(), in.readLong());
+        }
+        counters.recordsOut = in.readLong();
+        counters.bytesOut = in.readLong();
+        return counters;
+    }
+
+    // A SamplingPartitioner travels as its slot table and pinned keys; without one, workers partition with the
+    // logic's own partitioner, which they can build themselves.
+    static <K extends Comparable<K>> void writePartitioner(DataOutput out, Partitioner<?> partitioner,
+                                                           WorkerLogic<K, ?> logic) throws IOException {
+        if (!(partitioner instanceof SamplingPartitioner<?> sampling)) {
+            out.writeInt(0);
+            return;
+        }
+        int[] slots = sampling.slots();
+        out.writeInt(slots.length);
+        for (int slot : slots) out.writeInt(slot);
+
+        @SuppressWarnings("unchecked")
+        Map<K, Integer> pinned = (Map<K, Integer>) sampling.pinned();
+        out.writeInt(pinned.size());
+        for (Map.Entry<K, Integer> entry : pinned.entrySet()) {
+            out.writeUTF(logic.keySerializer().toText(entry.getKey()));
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    static <K extends Comparable<K>> Partitioner<K> readPartitioner(DataInput in, WorkerLogic<K, ?> logic)
+            throws IOException {
+        int[] slots = new int[in.readInt()];
+        if (slots.length == 0) return logic.partitioner();
+        for (int i = 0; i < slots.length; i++) slots[i] = in.readInt();
+
+        Map<K, Integer> pinned = new HashMap<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            pinned.put(logic.keySerializer().fromText(in.readUTF()), in.readInt());
+        }
+        return new SamplingPartitioner<>(logic.partitioner(), pinned, slots);
+    }
+
+    // Serializable logic travels as a serialized instance, so its configuration reaches every worker and each
+    // connection gets its own copy; any other logic travels as its class name and is built with the public no-arg
+    // constructor. Logic that fits neither is rejected here, on the coordinator, before any worker connects.
+    static byte[] encodeLogic(WorkerLogic<?, ?> logic) {
+        Class<?> type = logic.getClass();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (logic instanceof Serializable) {
+                out.writeByte(LOGIC_INSTANCE);
+                ObjectOutputStream objects = new ObjectOutputStream(out);
+                objects.writeObject(logic);
+                objects.flush();
+            } else if (hasPublicNoArgConstructor(type)) {
+                out.writeByte(LOGIC_CLASS);
+                out.writeUTF(type.getName());
+            } else {
+                throw new IllegalArgumentException("worker logic " + type.getName() + " cannot be sent to remote "
+                        + "workers: make it Serializable or give it a public no-arg constructor");
+            }
+        } catch (NotSerializableException e) {
+            throw new IllegalArgumentException("worker logic " + type.getName() + " cannot be sent to remote "
+                    + "workers: it holds an instance of " + e.getMessage() + ", which is not Serializable", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static boolean hasPublicNoArgConstructor(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers())) return false;
+        try {
+            type.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    static void writeLogic(DataOutput out, byte[] encoded) throws IOException {
+        out.writeInt(encoded.length);
+        out.write(encoded);
+    }
+
+    static WorkerLogic<?, ?> readLogic(DataInput in) throws IOException {
+        byte[] encoded = new byte[in.readInt()];
+        in.readFully(encoded);
+        DataInputStream logic = new DataInputStream(new ByteArrayInputStream(encoded));
+        byte tag = logic.readByte();
+        try {
+            return switch (tag) {
+                case LOGIC_INSTANCE -> (WorkerLogic<?, ?>) new ObjectInputStream(logic).readObject();
+                case LOGIC_CLASS -> (WorkerLogic<?, ?>) Class.forName(logic.readUTF()).getConstructor().newInstance();
+                default -> throw new IOException("unknown logic tag " + tag);
+            };
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IOException("cannot instantiate worker logic", e);
+        }
+    }
+
+    static void writePath(DataOutput out, Path path) throws IOException {
+        out.writeUTF(path.toAbsolutePath().toString());
+    }
+
+    static Path readPath(DataInput in) throws IOException {
+        return Path.of(in.readUTF());
+    }
+}
@@ -0,0 +1,36 @@
+package mp.core;
+
+import java.nio.file.Path;
+
+final class ReduceTask extends Task {
+    private final int id;
+    private final Path bucketFile;
+
+    public ReduceTask(int id, Path bucketFile) {
+        this(id, bucketFile, 0);
+    }
+
+    private ReduceTask(int id, Path bucketFile, int attempt) {
+        super(attempt);
+        this.id = id;
+        this.bucketFile = bucketFile;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public Path bucketFile() {
+        return bucketFile;
+    }
+
+    @Override
+    String name() {
+        return "reduce-" + id;
+    }
+
+    @Override
+    ReduceTask withAttempt(int attempt) {
+        return new ReduceTask(id, bucketFile, attempt);
+    }
+}
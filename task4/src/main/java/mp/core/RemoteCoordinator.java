@@ -0,0 +1,212 @@
+package mp.core;
+
+import mp.io.ShuffleFormat;
+import mp.logic.Partitioner;
+import mp.logic.WorkerLogic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Client side of CoordinatorServer: one connection per worker thread, requests are strictly request/response
+// under a lock, and a daemon thread heartbeats whenever the connection is idle.
+final class RemoteCoordinator implements TaskSource, Closeable {
+    private static final Logger logger = Logger.getLogger(RemoteCoordinator.class.getName());
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final WorkerLogic<?, ?> logic;
+    private final Partitioner<?> partitioner;
+    private final JobConfig config;
+    private final Path bucketsDir;
+    private final Path mergedDir;
+    private final Path outDir;
+    private volatile boolean closed;
+
+    private RemoteCoordinator(Socket socket) throws IOException {
+        this.socket = socket;
+        socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        out.writeByte(Protocol.HELLO);
+        out.flush();
+        this.logic = Protocol.readLogic(in);
+        this.config = JobConfig.defaults().withShuffleFormat(ShuffleFormat.valueOf(in.readUTF()))
+                .withMapBufferRecords(in.readInt()).withStageOutput(in.readBoolean());
+        this.bucketsDir = Protocol.readPath(in);
+        this.mergedDir = Protocol.readPath(in);
+        this.outDir = Protocol.readPath(in);
+        this.partitioner = Protocol.readPartitioner(in, logic);
+
+        Thread heartbeat = new Thread(this::heartbeatLoop, "heartbeat-" + socket.getLocalPort());
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+    }
+
+    static RemoteCoordinator connect(String host, int port) throws IOException {
+        return new RemoteCoordinator(new Socket(host, port));
+    }
+
+    // Each connection gets its own instance, so logic state is never shared between worker threads.
+    WorkerLogic<?, ?> getLogic() {
+        return logic;
+    }
+
+    private void heartbeatLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(Protocol.HEARTBEAT_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            // A busy connection is already proof of life, and the server is not reading while it blocks on TAKE.
+            if (!lock.tryLock()) continue;
+            try {
+                out.writeByte(Protocol.HEARTBEAT);
+                out.flush();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "heartbeat failed: {0}", e.toString());
+                return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public JobConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public CpuLimiter getCpuLimiter() {
+        return CpuLimiter.UNBOUNDED;
+    }
+
+    @Override
+    public Partitioner<?> getPartitioner() {
+        return partitioner;
+    }
+
+    @Override
+    public Path getBucketsDir() {
+        return bucketsDir;
+    }
+
+    @Override
+    public Path getMergedDir() {
+        return mergedDir;
+    }
+
+    @Override
+    public Path getOutDir() {
+        return outDir;
+    }
+
+    // Outputs this JVM kept on its heap would be invisible to the coordinator and every other worker.
+    @Override
+    public MemoryShuffle getMemoryShuffle() {
+        return null;
+    }
+
+    @Override
+    public Task takeTask() {
+        lock.lock();
+        try {
+            out.writeByte(Protocol.TAKE);
+            out.flush();
+            return Protocol.readTask(in);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "lost connection to coordinator, stopping: {0}", e.toString());
+            return ExitTask.getInstance();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean tryCommit(Task task, TaskCounters counters) {
+        lock.lock();
+        try {
+            out.writeByte(Protocol.COMMIT);
+            Protocol.writeTask(out, task);
+            Protocol.writeCounters(out, counters);
+            out.flush();
+            return in.readBoolean();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onTaskFailed(Task task, Exception e) {
+        logger.log(Level.WARNING, "attempt " + task.attempt() + " of " + task.name() + " failed", e);
+        send(Protocol.FAILED, () -> {
+            Protocol.writeTask(out, task);
+            out.writeUTF(String.valueOf(e));
+        });
+    }
+
+    @Override
+    public void onMapDone(String outputName) {
+        send(Protocol.MAP_DONE, () -> out.writeUTF(outputName));
+    }
+
+    @Override
+    public void onMergeDone(int bucketId, Path mergedFile) {
+        send(Protocol.MERGE_DONE, () -> {
+            out.writeInt(bucketId);
+            Protocol.writePath(out, mergedFile);
+        });
+    }
+
+    @Override
+    public void onReduceDone() {
+        send(Protocol.REDUCE_DONE, () -> {
+        });
+    }
+
+    @Override
+    public void reportWorkerError(Exception e) {
+        logger.log(Level.SEVERE, "worker failed with exception", e);
+        send(Protocol.ERROR, () -> out.writeUTF(String.valueOf(e)));
+    }
+
+    private void send(byte op, Body body) {
+        lock.lock();
+        try {
+            out.writeByte(op);
+            body.write();
+            out.flush();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "could not reach coordinator: {0}", e.toString());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,54 @@
+package mp.core;
+
+import mp.logic.WorkerLogic;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Entry point for a worker process: java mp.core.RemoteWorker <host> <port> [threads]
+// Every thread opens its own connection and runs an ordinary Worker against it until the coordinator is done.
+public final class RemoteWorker {
+    private static final Logger logger = Logger.getLogger(RemoteWorker.class.getName());
+
+    private RemoteWorker() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("usage: RemoteWorker <host> <port> [threads]");
+            System.exit(2);
+        }
+        String host = args[0];
+        int port = Integer.parseInt(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        run(host, port, threads);
+    }
+
+    static void run(String host, int port, int threads) throws IOException, InterruptedException {
+        List<RemoteCoordinator> connections = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                RemoteCoordinator connection = RemoteCoordinator.connect(host, port);
+                connections.add(connection);
+                Thread worker = new Thread(newWorker(connection, connection.getLogic()),
+                        "remote-worker-" + i);
+                workers.add(worker);
+                worker.start();
+            }
+            logger.log(Level.INFO, "started {0} workers against {1}:{2}", new Object[]{threads, host, port});
+
+            for (Thread worker : workers) worker.join();
+        } finally {
+            for (RemoteCoordinator connection : connections) connection.close();
+        }
+    }
+
+    private static <K extends Comparable<K>, V> Worker<K, V> newWorker(TaskSource source, WorkerLogic<K, V> logic) {
+        return new Worker<>(source, logic);
+    }
+}
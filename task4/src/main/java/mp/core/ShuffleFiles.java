@@ -0,0 +1,45 @@
+package mp.core;
+
+import mp.io.ShuffleFormat;
+
+import java.nio.file.Path;
+
+// Naming of the intermediate files shared by the coordinator and the workers.
+final class ShuffleFiles {
+    private ShuffleFiles() {
+    }
+
+    // One file per map task holds all of its buckets, see PartitionedFile.
+    static Path mapOutputFile(Path bucketsDir, String outputName, ShuffleFormat format) {
+        return bucketsDir.resolve("mr-" + outputName + format.extension());
+    }
+
+    static Path runFile(Path mergedDir, int bucket, int run, ShuffleFormat format) {
+        return mergedDir.resolve("run-" + bucket + "." + run + format.extension());
+    }
+
+    static Path mergedFile(Path mergedDir, int bucket, ShuffleFormat format) {
+        return mergedDir.resolve("merged-" + bucket + format.extension());
+    }
+
+    static Path outFile(Path outDir, int bucket) {
+        return outDir.resolve("mr-out-" + bucket + ".txt");
+    }
+
+    // Reduce output kept for the next stage of a JobGraph, as binary records of the stage's key and value types.
+    static Path stageOutputFile(Path outDir, int bucket) {
+        return outDir.resolve("mr-out-" + bucket + ".bin");
+    }
+
+    static boolean isStageOutput(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith("mr-out-") && name.endsWith(".bin");
+    }
+
+    // Stages lay out their output as <stage>/out/mr-out-<bucket>.bin, so a stage reading several upstream stages
+    // names its map outputs after the stage as well as the bucket.
+    static String stageInputName(Path stageOutput) {
+        String name = stageOutput.getFileName().toString();
+        return stageOutput.getParent().getParent().getFileName() + "-" + name.substring(0, name.length() - 4);
+    }
+}
@@ -0,0 +1,40 @@
+package mp.core;
+
+import mp.io.PartitionedFile;
+import mp.io.RecordReader;
+import mp.io.Serializer;
+import mp.io.ShuffleFormat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.LongConsumer;
+
+// A sorted input of a merge: one partition of a map output, or a whole run or merged file.
+record ShuffleInput(Path file, int partition) {
+    private static final int WHOLE_FILE = -1;
+
+    static ShuffleInput whole(Path file) {
+        return new ShuffleInput(file, WHOLE_FILE);
+    }
+
+    static ShuffleInput partition(Path mapOutput, int partition) {
+        return new ShuffleInput(mapOutput, partition);
+    }
+
+    boolean isWholeFile() {
+        return partition == WHOLE_FILE;
+    }
+
+    // Reports the bytes the input occupies to sizes, from the index a partition is located by anyway.
+    <K, V> RecordReader<K, V> open(ShuffleFormat format, Serializer<K> keys, Serializer<V> values, LongConsumer sizes)
+            throws IOException {
+        if (isWholeFile()) {
+            sizes.accept(Files.size(file));
+            return format.newReader(file, keys, values);
+        }
+        PartitionedFile.Segment<K, V> segment = PartitionedFile.openPartition(file, partition, format, keys, values);
+        sizes.accept(segment.length());
+        return segment;
+    }
+}
@@ -0,0 +1,108 @@
+package mp.core;
+
+import mp.logic.WorkerLogic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+// Keeps a job running over an input directory that keeps growing. Changes seen by the watch service are collected
+// for one interval and then processed as an incremental run, so each micro-batch maps only the new files and folds
+// them into the merged file of every bucket they touch.
+public class StreamingJob implements Closeable {
+    private static final Logger logger = Logger.getLogger(StreamingJob.class.getName());
+    private final WorkerLogic<?, ?> logic;
+    private final Path inputDir;
+    private final Path bucketsDir;
+    private final Path mergedDir;
+    private final Path outDir;
+    private final int numWorkers;
+    private final int numBuckets;
+    private final JobConfig config;
+    private final Duration interval;
+    private volatile boolean closed;
+    private volatile int batches;
+
+    public StreamingJob(WorkerLogic<?, ?> logic, Path inputDir, Path bucketsDir, Path mergedDir, Path outDir,
+                        int numWorkers, int numBuckets, JobConfig config, Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive: " + interval);
+        }
+        this.logic = logic;
+        this.inputDir = inputDir;
+        this.bucketsDir = bucketsDir;
+        this.mergedDir = mergedDir;
+        this.outDir = outDir;
+        this.numWorkers = numWorkers;
+        this.numBuckets = numBuckets;
+        this.config = config.withIncremental(true);
+        this.interval = interval;
+    }
+
+    // Runs until close() is called or the input directory goes away.
+    public void run() throws IOException, InterruptedException {
+        try (WatchService watcher = inputDir.getFileSystem().newWatchService()) {
+            inputDir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            logger.log(Level.INFO, "watching {0} for new input every {1} ms",
+                    new Object[]{inputDir, interval.toMillis()});
+
+            // files present before the watch was registered form the first batch
+            boolean pending = !runBatch();
+            long nextBatch = System.nanoTime() + interval.toNanos();
+            while (!closed) {
+                long waitNanos = Math.max(0, nextBatch - System.nanoTime());
+                WatchKey key = watcher.poll(waitNanos, TimeUnit.NANOSECONDS);
+                if (key != null) {
+                    pending |= !key.pollEvents().isEmpty();
+                    if (!key.reset()) {
+                        logger.log(Level.WARNING, "input directory {0} is no longer accessible, stopping", inputDir);
+                        return;
+                    }
+                }
+                if (System.nanoTime() - nextBatch >= 0) {
+                    // a file still being written is mapped as it is now and mapped again once it changes;
+                    // a failed batch stays pending and is retried after the next interval
+                    if (pending && !closed) pending = !runBatch();
+                    nextBatch = System.nanoTime() + interval.toNanos();
+                }
+            }
+        }
+    }
+
+    // Returns whether the batch succeeded.
+    private boolean runBatch() throws IOException {
+        long started = System.nanoTime();
+        Coordinator coordinator = new Coordinator(logic, inputDir, bucketsDir, mergedDir, outDir, numWorkers,
+                numBuckets, config);
+        coordinator.run();
+        batches++;
+        logger.log(Level.INFO, "micro-batch {0} finished in {1} ms, {2} map tasks",
+                new Object[]{batches, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                        coordinator.getMetrics().getMap().getTasks()});
+        if (!coordinator.succeeded()) {
+            logger.log(Level.WARNING, "micro-batch {0} failed, retrying in {1} ms with all inputs recomputed",
+                    new Object[]{batches, interval.toMillis()});
+            return false;
+        }
+        return true;
+    }
+
+    public int completedBatches() {
+        return batches;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+}
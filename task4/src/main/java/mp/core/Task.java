@@ -1,54 +1,18 @@
 package mp.core;
 
-import java.nio.file.Path;
+// Every attempt of a task shares its name(); attempt() tells concurrent or retried copies apart.
+public sealed abstract class Task permits MapTask, MergeTask, ReduceTask, ExitTask {
+    private final int attempt;
 
-public sealed abstract class Task permits MapTask, ReduceTask, ExitTask {
-}
-
-final class MapTask extends Task {
-    private final Path inputFile;
-    private final int bucketCount;
-
-    public MapTask(Path inputFile, int bucketCount) {
-        this.inputFile = inputFile;
-        this.bucketCount = bucketCount;
-    }
-
-    public Path inputFile() {
-        return inputFile;
-    }
-
-    public int bucketCount() {
-        return bucketCount;
+    Task(int attempt) {
+        this.attempt = attempt;
     }
-}
-
-final class ReduceTask extends Task {
-    private final int id;
-    private final Path bucketFile;
 
-    public ReduceTask(int id, Path bucketFile) {
-        this.id = id;
-        this.bucketFile = bucketFile;
+    public int attempt() {
+        return attempt;
     }
 
-    public int id() {
-        return id;
-    }
+    abstract String name();
 
-    public Path bucketFile() {
-        return bucketFile;
-    }
+    abstract Task withAttempt(int attempt);
 }
-
-final class ExitTask extends Task{
-    private static ExitTask INSTANCE;
-    private ExitTask(){}
-
-    public static ExitTask getInstance(){
-        if (INSTANCE == null){
-            INSTANCE = new ExitTask();
-        }
-        return INSTANCE;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package mp.core;
+
+import java.util.Arrays;
+
+// What one attempt read and wrote. A worker fills it while running the task and hands it over with the commit,
+// so only the attempt whose output is kept is counted.
+final class TaskCounters {
+    long recordsIn;
+    long bytesIn;
+    long recordsOut;
+    long bytesOut;
+    long waitNanos;
+    long[] bucketRecords = new long[0];
+    long[] bucketBytes = new long[0];
+
+    void bucket(int bucket, long records, long bytes) {
+        if (bucket >= bucketRecords.length) {
+            bucketRecords = Arrays.copyOf(bucketRecords, bucket + 1);
+            bucketBytes = Arrays.copyOf(bucketBytes, bucket + 1);
+        }
+        bucketRecords[bucket] += records;
+        bucketBytes[bucket] += bytes;
+        recordsOut += records;
+        bytesOut += bytes;
+    }
+}
@@ -0,0 +1,38 @@
+package mp.core;
+
+import mp.logic.Partitioner;
+
+import java.nio.file.Path;
+
+// Everything a Worker needs from the party handing out tasks: the in-process Coordinator, or a
+// RemoteCoordinator proxying one over TCP.
+interface TaskSource {
+    JobConfig getConfig();
+
+    CpuLimiter getCpuLimiter();
+
+    Partitioner<?> getPartitioner();
+
+    Path getBucketsDir();
+
+    Path getMergedDir();
+
+    Path getOutDir();
+
+    // Null unless shuffle outputs may be kept on the heap of this process.
+    MemoryShuffle getMemoryShuffle();
+
+    Task takeTask() throws InterruptedException;
+
+    boolean tryCommit(Task task, TaskCounters counters);
+
+    void onTaskFailed(Task task, Exception e);
+
+    void onMapDone(String outputName);
+
+    void onMergeDone(int bucketId, Path mergedFile);
+
+    void onReduceDone();
+
+    void reportWorkerError(Exception e);
+}
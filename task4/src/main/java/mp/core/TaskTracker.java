@@ -0,0 +1,261 @@
+package mp.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Tracks every attempt of every task: retries failed attempts, relaunches timed-out ones and, once the queue
+// has drained, launches one speculative copy of a task running much longer than its finished peers.
+// The first attempt to commit wins; later attempts of the same task are told to discard their output.
+// A timed-out attempt is interrupted so that its worker can move on. One that ignores the interrupt keeps its
+// worker, so a relaunched attempt that is still queued a whole timeout later counts as timed out as well: the
+// launcher puts relaunches at the head of the queue, and only workers stuck on timed-out attempts keep it waiting.
+final class TaskTracker {
+    private static final Logger logger = Logger.getLogger(TaskTracker.class.getName());
+    static final double SPECULATION_FACTOR = 1.5;
+    static final long SPECULATION_MIN_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final Map<String, TaskState> states = new HashMap<>();
+    private final Map<Class<?>, List<Long>> durations = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Consumer<Task> launcher;
+    private final JobMetrics metrics;
+    private final long timeoutNanos;
+    private final int maxAttempts;
+    private final boolean speculative;
+
+    TaskTracker(JobConfig config, Consumer<Task> launcher) {
+        this(config, new JobMetrics(0), launcher);
+    }
+
+    TaskTracker(JobConfig config, JobMetrics metrics, Consumer<Task> launcher) {
+        this.launcher = launcher;
+        this.metrics = metrics;
+        this.timeoutNanos = config.taskTimeout().toNanos();
+        this.maxAttempts = config.maxAttempts();
+        this.speculative = config.speculativeExecution();
+    }
+
+    void submit(Task task) {
+        lock.lock();
+        try {
+            TaskState state = new TaskState(task);
+            states.put(task.name(), state);
+            launch(state);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns false when the task has already been committed by another attempt and this one can be skipped.
+    boolean start(Task task) {
+        return start(task, null);
+    }
+
+    // thread runs the attempt and is interrupted if the attempt times out; null for attempts run by remote workers.
+    boolean start(Task task, Thread thread) {
+        lock.lock();
+        try {
+            TaskState state = states.get(task.name());
+            if (state == null) return true;
+            state.pending--;
+            if (state.committed) return false;
+            state.running.put(task.attempt(), new Attempt(System.nanoTime(), thread));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean tryCommit(Task task) {
+        lock.lock();
+        try {
+            TaskState state = states.get(task.name());
+            if (state == null) return true;
+            Attempt attempt = finish(state, task);
+            if (state.committed) return false;
+
+            state.committed = true;
+            state.committedAttempt = task.attempt();
+            if (attempt != null) {
+                long duration = System.nanoTime() - attempt.started;
+                durations.computeIfAbsent(task.getClass(), c -> new ArrayList<>()).add(duration);
+                metrics.taskDuration(task, duration);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns false when the task cannot succeed any more and the job has to fail.
+    boolean onFailure(Task task) {
+        lock.lock();
+        try {
+            TaskState state = states.get(task.name());
+            if (state == null) return false;
+            finish(state, task);
+            if (state.committed) return state.committedAttempt != task.attempt();
+            if (busy(state)) return true;
+            if (state.nextAttempt >= maxAttempts) return false;
+
+            logger.log(Level.WARNING, "retrying {0}, attempt {1} of {2}",
+                    new Object[]{task.name(), state.nextAttempt + 1, maxAttempts});
+            launch(state);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Takes back the commit of an attempt whose worker was lost before it reported the task done, so the task runs
+    // again. Returns false when no attempt is left to run it.
+    boolean reopen(Task task) {
+        lock.lock();
+        try {
+            TaskState state = states.get(task.name());
+            if (state == null || !state.committed || state.committedAttempt != task.attempt()) return true;
+            state.committed = false;
+            state.committedAttempt = -1;
+            if (busy(state)) return true;
+            if (state.nextAttempt >= maxAttempts) return false;
+
+            logger.log(Level.WARNING, "{0} was committed but never reported done, launching attempt {1} of {2}",
+                    new Object[]{task.name(), state.nextAttempt + 1, maxAttempts});
+            launch(state);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns the name of a task that timed out on its last allowed attempt, or null if all is well.
+    String checkStragglers(boolean queueDrained) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            for (TaskState state : states.values()) {
+                if (state.committed) continue;
+
+                long oldestStart = Long.MAX_VALUE;
+                boolean live = false;
+                for (Map.Entry<Integer, Attempt> entry : state.running.entrySet()) {
+                    Attempt attempt = entry.getValue();
+                    if (!attempt.timedOut && now - attempt.started > timeoutNanos) {
+                        logger.log(Level.WARNING, "attempt {0} of {1} timed out",
+                                new Object[]{entry.getKey(), state.task.name()});
+                        attempt.timedOut = true;
+                        state.timeouts++;
+                        if (attempt.thread != null) attempt.thread.interrupt();
+                    }
+                    if (!attempt.timedOut) {
+                        live = true;
+                        oldestStart = Math.min(oldestStart, attempt.started);
+                    }
+                }
+
+                if (live) {
+                    if (speculative && queueDrained && !state.speculated && state.pending == 0
+                            && state.nextAttempt < maxAttempts) {
+                        long median = median(durations.get(state.task.getClass()));
+                        long elapsed = now - oldestStart;
+                        if (median > 0 && elapsed > Math.max(SPECULATION_MIN_NANOS,
+                                (long) (median * SPECULATION_FACTOR))) {
+                            logger.log(Level.INFO, "{0} is straggling, launching a speculative attempt",
+                                    state.task.name());
+                            state.speculated = true;
+                            launch(state);
+                        }
+                    }
+                    continue;
+                }
+                // a task that never timed out is either queued for its first attempt or being retried
+                if (state.timeouts == 0) continue;
+                if (state.pending > 0 && now - state.launched <= timeoutNanos) continue;
+
+                if (state.nextAttempt >= maxAttempts) return state.task.name();
+                logger.log(Level.WARNING, "{0} timed out, launching attempt {1} of {2}",
+                        new Object[]{state.task.name(), state.nextAttempt + 1, maxAttempts});
+                launch(state);
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            int running = 0;
+            for (TaskState state : states.values()) running += state.running.size();
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Whether an attempt of the task is queued or running without having timed out.
+    private static boolean busy(TaskState state) {
+        if (state.pending > 0) return true;
+        for (Attempt attempt : state.running.values()) {
+            if (!attempt.timedOut) return true;
+        }
+        return false;
+    }
+
+    // Called on the thread that ran the attempt. An interrupt sent because the attempt timed out is cleared here,
+    // so it does not reach the next task of the worker.
+    private static Attempt finish(TaskState state, Task task) {
+        Attempt attempt = state.running.remove(task.attempt());
+        if (attempt != null && attempt.timedOut && attempt.thread == Thread.currentThread()) Thread.interrupted();
+        return attempt;
+    }
+
+    private void launch(TaskState state) {
+        if (state.nextAttempt > 0) metrics.attemptRelaunched();
+        state.pending++;
+        state.launched = System.nanoTime();
+        launcher.accept(state.task.withAttempt(state.nextAttempt++));
+    }
+
+    private static long median(List<Long> values) {
+        if (values == null || values.isEmpty()) return -1;
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static final class TaskState {
+        private final Task task;
+        private final Map<Integer, Attempt> running = new HashMap<>();
+        private int nextAttempt;
+        private int pending;
+        private long launched;
+        private int timeouts;
+        private boolean committed;
+        private int committedAttempt = -1;
+        private boolean speculated;
+
+        TaskState(Task task) {
+            this.task = task;
+        }
+    }
+
+    private static final class Attempt {
+        private final long started;
+        private final Thread thread;
+        private boolean timedOut;
+
+        Attempt(long started, Thread thread) {
+            this.started = started;
+            this.thread = thread;
+        }
+    }
+}
@@ -1,94 +1,600 @@
 package mp.core;
 
+import mp.io.LineReader;
+import mp.io.MemoryRun;
+import mp.io.PartitionedFile;
+import mp.io.PartitionedWriter;
+import mp.io.RecordReader;
+import mp.io.RecordWriter;
+import mp.io.Serializer;
+import mp.io.ShuffleFormat;
+import mp.logic.LongEmitter;
+import mp.logic.LongValuedLogic;
+import mp.logic.Partitioner;
 import mp.logic.WorkerLogic;
 import mp.model.KeyValue;
+import mp.model.LongTable;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.ObjLongConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
-public class Worker implements Runnable {
+public class Worker<K extends Comparable<K>, V> implements Runnable {
     private static final Logger logger = Logger.getLogger(Worker.class.getName());
-    private final Coordinator coordinator;
-    private final WorkerLogic logic;
+    private static final int MAP_BATCH_LINES = 1024;
+    private static final int REDUCE_BATCH_RECORDS = 1024;
+    private final TaskSource coordinator;
+    private final WorkerLogic<K, V> logic;
+    private final List<Path> outputs = new ArrayList<>();
+    private final List<Path> spillFiles = new ArrayList<>();
+    private final Map<Path, List<MemoryRun>> memoryOutputs = new LinkedHashMap<>();
+    private long reservedBytes;
+    private TaskCounters counters = new TaskCounters();
+    private long waitNanos;
 
-    public Worker(Coordinator coordinator, WorkerLogic logic) {
+    public Worker(Coordinator coordinator, WorkerLogic<K, V> logic) {
+        this((TaskSource) coordinator, logic);
+    }
+
+    Worker(TaskSource coordinator, WorkerLogic<K, V> logic) {
         this.coordinator = coordinator;
         this.logic = logic;
     }
 
 
     public void executeMap(Path inputFile, int bucketsCount) throws IOException {
-        logger.log(Level.FINE, "starting map task for file: {0}", inputFile.getFileName());
-
-        List<KeyValue>[] buckets = new List[bucketsCount];
-        for (int i = 0; i < bucketsCount; i++) buckets[i] = new ArrayList<>();
-
-        try (BufferedReader reader = Files.newBufferedReader(inputFile)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                List<KeyValue> kvs = logic.map(line);
-                for (KeyValue kv : kvs) {
-                    int bucket = Math.floorMod(kv.key().hashCode(), bucketsCount);
-                    buckets[bucket].add(kv);
+        String baseName = inputFile.getFileName().toString().replace(".txt", "");
+        executeMap(inputFile, 0, Long.MAX_VALUE, baseName, bucketsCount);
+    }
+
+    public void executeMap(Path inputFile, long start, long length, String outputName, int bucketsCount)
+            throws IOException {
+        executeMap(new MapTask(inputFile, start, length, outputName, bucketsCount));
+    }
+
+    boolean executeMap(MapTask task) throws IOException {
+        Path inputFile = task.inputFile();
+        long start = task.start();
+        long length = task.length();
+        String outputName = task.outputName();
+        int bucketsCount = task.bucketCount();
+        logger.log(Level.FINE, "starting map task for file: {0}, bytes {1}..{2}",
+                new Object[]{inputFile.getFileName(), start, start + length});
+        startCounting();
+        counters.bytesIn = Math.max(0, Math.min(length, Files.size(inputFile) - start));
+
+        Path bucketsDir = coordinator.getBucketsDir();
+        Files.createDirectories(bucketsDir);
+
+        // the output of an earlier stage holds typed records, which long-valued logic cannot map as lines
+        if (logic instanceof LongValuedLogic<?> longLogic && !ShuffleFiles.isStageOutput(inputFile)) {
+            mapLongs(longLogic, task, inputFile, start, length, outputName, bucketsCount);
+        } else {
+            mapRecords(task, inputFile, start, length, outputName, bucketsCount);
+        }
+
+        logger.log(Level.FINE, "map task completed for file: {0}", inputFile.getFileName());
+        return publish(task);
+    }
+
+    private void mapRecords(MapTask task, Path inputFile, long start, long length, String outputName,
+                            int bucketsCount) throws IOException {
+        List<List<KeyValue<K, V>>> buckets = new ArrayList<>(bucketsCount);
+        for (int i = 0; i < bucketsCount; i++) buckets.add(new ArrayList<>());
+        List<Path> spills = new ArrayList<>();
+        int bufferLimit = coordinator.getConfig().mapBufferRecords();
+        int buffered = 0;
+
+        Partitioner<K> partitioner = partitioner();
+        CpuLimiter cpu = coordinator.getCpuLimiter();
+        try (MapInput<K, V> input = MapInput.open(task, logic, start, length)) {
+            List<KeyValue<K, V>> emitted = new ArrayList<>();
+            int read;
+            while ((read = input.read(MAP_BATCH_LINES)) > 0) {
+                counters.recordsIn += read;
+                cpu.acquire();
+                try {
+                    input.map(emitted);
+                    for (KeyValue<K, V> kv : emitted) {
+                        int bucket = partitioner.partition(kv.key(), bucketsCount);
+                        buckets.get(bucket).add(kv);
+                    }
+                    buffered += emitted.size();
+                    emitted.clear();
+                } finally {
+                    cpu.release();
+                }
+                if (buffered >= bufferLimit) {
+                    writeRecords(newSpill(task, outputName, spills, bucketsCount, logic.keySerializer(),
+                            logic.valueSerializer()), buckets, cpu);
+                    buffered = 0;
                 }
             }
         }
 
-        Path bucketsDir = coordinator.getBucketsDir();
-        Files.createDirectories(bucketsDir);
-        String baseName = inputFile.getFileName().toString().replace(".txt", "");
+        logger.log(Level.FINER, "writing map output for {0}", outputName);
+
+        Path output = mapOutputFile(outputName);
+        PartitionedWriter<K, V> out = openMapOutput(task, output, bucketsCount, logic.keySerializer(),
+                logic.valueSerializer());
+        if (spills.isEmpty()) {
+            countBuckets(writeRecords(out, buckets, cpu));
+        } else {
+            if (buffered > 0) {
+                writeRecords(newSpill(task, outputName, spills, bucketsCount, logic.keySerializer(),
+                        logic.valueSerializer()), buckets, cpu);
+            }
+            countBuckets(mergeSpills(spills, attemptPath(task, output), out, bucketsCount, logic.keySerializer(),
+                    logic.valueSerializer(), mergeCombiner()));
+        }
+        keepOrWrite(task, output, out, true, logic.keySerializer(), logic.valueSerializer());
+    }
 
-        logger.log(Level.FINER, "writing bucket files for {0}", baseName);
+    // Writes every bucket, combined and sorted, as one partition of out, closes it and empties the buckets.
+    private BucketSizes writeRecords(PartitionedWriter<K, V> out, List<List<KeyValue<K, V>>> buckets,
+                                     CpuLimiter cpu) throws IOException {
+        BucketSizes sizes = new BucketSizes(buckets.size());
+        try (out) {
+            for (int b = 0; b < buckets.size(); b++) {
+                List<KeyValue<K, V>> combined;
+                cpu.acquire();
+                try {
+                    combined = new ArrayList<>(logic.combine(buckets.get(b)));
+                    combined.sort((x, y) -> x.key().compareTo(y.key()));
+                } finally {
+                    cpu.release();
+                }
+                logger.log(Level.FINER, "bucket {0} combined from {1} to {2} records",
+                        new Object[]{b, buckets.get(b).size(), combined.size()});
+                buckets.get(b).clear();
+
+                RecordWriter<K, V> writer = out.partition(b);
+                for (KeyValue<K, V> kv : combined) {
+                    writer.write(kv);
+                }
+                sizes.records[b] = combined.size();
+            }
+        }
+        return sizes.of(out);
+    }
 
-        for (int b = 0; b < bucketsCount; b++) {
-            Path outFile = bucketsDir.resolve("mr-" + baseName + "-" + b + ".txt");
-            List<String> lines = buckets[b].stream()
-                    .map(kv -> kv.key() + "\t" + kv.value())
-                    .collect(Collectors.toList());
+    // Long-valued logic folds every emitted value straight into a per-bucket table of primitive cells.
+    private <L extends Comparable<L>> void mapLongs(LongValuedLogic<L> longLogic, MapTask task, Path inputFile,
+                                                    long start, long length, String outputName, int bucketsCount)
+            throws IOException {
+        List<LongTable<L>> buckets = new ArrayList<>(bucketsCount);
+        for (int i = 0; i < bucketsCount; i++) buckets.add(new LongTable<>(longLogic::mergeValues));
+        List<Path> spills = new ArrayList<>();
+        int bufferLimit = coordinator.getConfig().mapBufferRecords();
 
-            Files.write(outFile, lines,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+        Partitioner<L> partitioner = partitioner();
+        LongEmitter<L> emitter = (key, value) ->
+                buckets.get(partitioner.partition(key, bucketsCount)).add(key, value);
+        CpuLimiter cpu = coordinator.getCpuLimiter();
+        try (LineReader reader = task.open(start, length)) {
+            List<String> batch = new ArrayList<>(MAP_BATCH_LINES);
+            while (readBatch(reader, batch)) {
+                counters.recordsIn += batch.size();
+                cpu.acquire();
+                try {
+                    for (String line : batch) {
+                        longLogic.map(line, emitter);
+                    }
+                } finally {
+                    cpu.release();
+                }
+                // the tables only grow with distinct keys, so a corpus with a small vocabulary never spills
+                if (buckets.stream().mapToInt(LongTable::size).sum() >= bufferLimit) {
+                    writeTables(newSpill(task, outputName, spills, bucketsCount, longLogic.keySerializer(),
+                            longLogic.valueSerializer()), buckets, longLogic, cpu);
+                }
+            }
+        }
+
+        logger.log(Level.FINER, "writing map output for {0}", outputName);
+
+        Path output = mapOutputFile(outputName);
+        PartitionedWriter<L, Long> out = openMapOutput(task, output, bucketsCount, longLogic.keySerializer(),
+                longLogic.valueSerializer());
+        if (spills.isEmpty()) {
+            countBuckets(writeTables(out, buckets, longLogic, cpu));
+        } else {
+            if (buckets.stream().anyMatch(table -> !table.isEmpty())) {
+                writeTables(newSpill(task, outputName, spills, bucketsCount, longLogic.keySerializer(),
+                        longLogic.valueSerializer()), buckets, longLogic, cpu);
+            }
+            countBuckets(mergeSpills(spills, attemptPath(task, output), out, bucketsCount,
+                    longLogic.keySerializer(), longLogic.valueSerializer(), (x, y) -> longLogic.mergeValues(x, y)));
+        }
+        keepOrWrite(task, output, out, true, longLogic.keySerializer(), longLogic.valueSerializer());
+    }
+
+    // Writes every table as one partition of out, closes it and replaces each table with an empty one.
+    private <L extends Comparable<L>> BucketSizes writeTables(PartitionedWriter<L, Long> out,
+                                                              List<LongTable<L>> tables,
+                                                              LongValuedLogic<L> longLogic, CpuLimiter cpu)
+            throws IOException {
+        BucketSizes sizes = new BucketSizes(tables.size());
+        try (out) {
+            for (int b = 0; b < tables.size(); b++) {
+                LongTable<L> table = tables.get(b);
+                List<L> keys;
+                cpu.acquire();
+                try {
+                    keys = table.sortedKeys(Comparator.naturalOrder());
+                } finally {
+                    cpu.release();
+                }
+                RecordWriter<L, Long> writer = out.partition(b);
+                for (L key : keys) {
+                    writer.writeLong(key, table.get(key));
+                }
+                sizes.records[b] = keys.size();
+                tables.set(b, new LongTable<>(longLogic::mergeValues));
+            }
+        }
+        return sizes.of(out);
+    }
+
+    // Spills sit next to the attempt's map output, so they are as private to the attempt as the output itself.
+    // They always go to disk: a task spills because it is short of heap.
+    private <A, B> PartitionedWriter<A, B> newSpill(Task task, String outputName, List<Path> spills, int partitions,
+                                                    Serializer<A> keys, Serializer<B> values) throws IOException {
+        Path output = attemptPath(task, mapOutputFile(outputName));
+        Path file = output.resolveSibling(output.getFileName() + ".spill" + spills.size());
+        spillFiles.add(file);
+        spills.add(file);
+        return PartitionedFile.newWriter(file, coordinator.getConfig().shuffleFormat(), partitions, keys, values);
+    }
+
+    // Intermediate files of a multi-pass merge are named after scratch.
+    private <A extends Comparable<A>, B> BucketSizes mergeSpills(List<Path> spills, Path scratch,
+                                                                 PartitionedWriter<A, B> out, int bucketsCount,
+                                                                 Serializer<A> keys, Serializer<B> values,
+                                                                 BinaryOperator<B> combiner) throws IOException {
+        logger.log(Level.FINER, "merging {0} spills into {1}", new Object[]{spills.size(), scratch.getFileName()});
+        ShuffleFormat format = coordinator.getConfig().shuffleFormat();
+        BucketSizes sizes = new BucketSizes(bucketsCount);
+        try (out) {
+            for (int b = 0; b < bucketsCount; b++) {
+                int bucket = b;
+                List<ShuffleInput> inputs = spills.stream()
+                        .map(spill -> ShuffleInput.partition(spill, bucket))
+                        .toList();
+                sizes.records[b] = BucketMerger.mergeInto(inputs, scratch, out.partition(b), format, keys, values,
+                        combiner, BucketMerger.fromDisk(format, keys, values, bytes -> {
+                        }));
+            }
+        }
+        for (Path spill : spills) {
+            Files.delete(spill);
+            spillFiles.remove(spill);
+        }
+        return sizes.of(out);
+    }
+
+    private void countBuckets(BucketSizes sizes) {
+        for (int b = 0; b < sizes.records.length; b++) {
+            counters.bucket(b, sizes.records[b], sizes.bytes[b]);
+        }
+    }
+
+    private static final class BucketSizes {
+        final long[] records;
+        final long[] bytes;
+
+        BucketSizes(int buckets) {
+            records = new long[buckets];
+            bytes = new long[buckets];
+        }
 
-            logger.log(Level.FINE, "map task completed for file: {0}", inputFile.getFileName());
+        BucketSizes of(PartitionedWriter<?, ?> writer) {
+            for (int b = 0; b < bytes.length; b++) bytes[b] = writer.length(b);
+            return this;
         }
     }
 
+    // The source builds the partitioner from this job's logic, so its key type is the logic's.
+    @SuppressWarnings("unchecked")
+    private <T> Partitioner<T> partitioner() {
+        return (Partitioner<T>) coordinator.getPartitioner();
+    }
+
+    private static boolean readBatch(LineReader reader, List<String> batch) throws IOException {
+        batch.clear();
+        String line;
+        while (batch.size() < MAP_BATCH_LINES && (line = reader.readLine()) != null) {
+            batch.add(line);
+        }
+        return !batch.isEmpty();
+    }
+
+    private Path mapOutputFile(String outputName) {
+        return ShuffleFiles.mapOutputFile(coordinator.getBucketsDir(), outputName,
+                coordinator.getConfig().shuffleFormat());
+    }
+
+    boolean executeMerge(MergeTask task) throws IOException {
+        logger.log(Level.FINE, "starting {0} over {1} inputs", new Object[]{task.name(), task.inputs().size()});
+
+        startCounting();
+        Files.createDirectories(task.output().getParent());
+        ShuffleFormat format = coordinator.getConfig().shuffleFormat();
+        Serializer<K> keys = logic.keySerializer();
+        Serializer<V> values = logic.valueSerializer();
+        BucketMerger.InputOpener<K, V> opener = opener(keys, values, bytes -> counters.bytesIn += bytes);
+        long lines;
+        if (coordinator.getMemoryShuffle() == null) {
+            Path outFile = attemptFile(task, task.output());
+            lines = BucketMerger.merge(task.inputs(), outFile, format, keys, values, mergeCombiner(), opener);
+            counters.bytesOut = Files.size(outFile);
+        } else {
+            MemoryRun.Writer<K, V> out = MemoryRun.newWriter(1, keys, values);
+            try (out) {
+                lines = BucketMerger.mergeInto(task.inputs(), attemptPath(task, task.output()), out.partition(0),
+                        format, keys, values, mergeCombiner(), opener);
+            }
+            counters.bytesOut = out.length(0);
+            keepOrWrite(task, task.output(), out, false, keys, values);
+        }
+        // records are not counted on the way into a merge, only bytes
+        counters.recordsOut = lines;
+
+        logger.log(Level.FINE, "{0} completed, wrote {1} records", new Object[]{task.name(), lines});
+        return publish(task);
+    }
+
+    // Long-valued logic folds equal keys while merging, so runs and merged files carry one record per key.
+    @SuppressWarnings("unchecked")
+    private BinaryOperator<V> mergeCombiner() {
+        if (logic instanceof LongValuedLogic<?> longLogic) {
+            return (a, b) -> (V) Long.valueOf(longLogic.mergeValues((Long) a, (Long) b));
+        }
+        return null;
+    }
+
     public void executeReduce(int reduceId, Path bucketFile) throws IOException {
+        executeReduce(new ReduceTask(reduceId, bucketFile));
+    }
+
+    boolean executeReduce(ReduceTask task) throws IOException {
+        int reduceId = task.id();
+        Path bucketFile = task.bucketFile();
         logger.log(Level.FINE, "starting reduce task for bucket {0}", reduceId);
+        startCounting();
 
-        List<KeyValue> keyValues = new ArrayList<>();
-        try (BufferedReader reader = Files.newBufferedReader(bucketFile)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("\t", 2);
-                if (parts.length >= 2) {
-                    keyValues.add(new KeyValue(parts[0], parts[1]));
+        // a stage feeding later stages hands them typed records, anything else writes text lines
+        boolean stageOutput = coordinator.getConfig().stageOutput();
+        List<String> outLines = null;
+        List<KeyValue<K, V>> outRecords = null;
+        CpuLimiter cpu = coordinator.getCpuLimiter();
+        try (RecordReader<K, V> reader = opener(logic.keySerializer(), logic.valueSerializer(),
+                bytes -> counters.bytesIn = bytes).open(ShuffleInput.whole(bucketFile))) {
+            cpu.acquire();
+            try {
+                if (stageOutput) {
+                    outRecords = logic.reduceRecords(batched(reader, cpu));
+                } else {
+                    outLines = logic.reduce(batched(reader, cpu));
                 }
+            } finally {
+                cpu.release();
             }
         }
-        logger.log(Level.FINER, "parsed {0} key-value pairs from bucket file", keyValues.size());
-
-        List<String> outLines = logic.reduce(keyValues);
-
 
         Path outDir = coordinator.getOutDir();
         Files.createDirectories(outDir);
-        Path outFile = outDir.resolve("mr-out-" + reduceId + ".txt");
-        Files.write(outFile, outLines,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING);
+        Path outFile;
+        if (stageOutput) {
+            outFile = attemptFile(task, ShuffleFiles.stageOutputFile(outDir, reduceId));
+            try (RecordWriter<K, V> writer = ShuffleFormat.BINARY.newWriter(outFile, logic.keySerializer(),
+                    logic.valueSerializer())) {
+                for (KeyValue<K, V> kv : outRecords) writer.write(kv);
+            }
+            counters.recordsOut = outRecords.size();
+        } else {
+            outFile = attemptFile(task, ShuffleFiles.outFile(outDir, reduceId));
+            Files.write(outFile, outLines,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            counters.recordsOut = outLines.size();
+        }
+        counters.bytesOut = Files.size(outFile);
+
+        logger.log(Level.FINE, "reduce task completed for bucket {0}, wrote {1} records",
+                new Object[]{reduceId, counters.recordsOut});
+        return publish(task);
+    }
+
+    // Hands reduce its records from batches read ahead, giving the CPU permit back while each batch is read so that
+    // a reduce waiting on disk does not keep another worker from computing. Batches read with nextLong keep their
+    // values in a long[].
+    private RecordReader<K, V> batched(RecordReader<K, V> reader, CpuLimiter cpu) {
+        return new RecordReader<>() {
+            private final List<KeyValue<K, V>> batch = new ArrayList<>(REDUCE_BATCH_RECORDS);
+            private final List<K> longKeys = new ArrayList<>(REDUCE_BATCH_RECORDS);
+            private final long[] longValues = new long[REDUCE_BATCH_RECORDS];
+            private final ObjLongConsumer<K> append = (key, value) -> {
+                longValues[longKeys.size()] = value;
+                longKeys.add(key);
+            };
+            private int next;
+
+            @Override
+            public KeyValue<K, V> next() throws IOException {
+                if (next == batch.size()) {
+                    batch.clear();
+                    next = 0;
+                    cpu.release();
+                    try {
+                        KeyValue<K, V> kv;
+                        while (batch.size() < REDUCE_BATCH_RECORDS && (kv = reader.next()) != null) batch.add(kv);
+                    } finally {
+                        cpu.acquire();
+                    }
+                    counters.recordsIn += batch.size();
+                    if (batch.isEmpty()) return null;
+                }
+                return batch.get(next++);
+            }
+
+            @Override
+            public boolean nextLong(ObjLongConsumer<? super K> action) throws IOException {
+                if (next == longKeys.size()) {
+                    longKeys.clear();
+                    next = 0;
+                    cpu.release();
+                    try {
+                        while (longKeys.size() < REDUCE_BATCH_RECORDS && reader.nextLong(append)) {
+                            // append fills the batch
+                        }
+                    } finally {
+                        cpu.acquire();
+                    }
+                    counters.recordsIn += longKeys.size();
+                    if (longKeys.isEmpty()) return false;
+                }
+                action.accept(longKeys.get(next), longValues[next]);
+                next++;
+                return true;
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
 
-        logger.log(Level.FINE, "reduce task completed for bucket {0}, wrote {1} lines",
-                new Object[]{reduceId, outLines.size()});
+    // Counters start fresh for every task and carry the time this worker waited for it.
+    private void startCounting() {
+        counters = new TaskCounters();
+        counters.waitNanos = waitNanos;
+        waitNanos = 0;
+    }
+
+    // Outputs are written next to their final path under an attempt-specific name and renamed into place
+    // only if this attempt is the first of its task to commit.
+    private Path attemptFile(Task task, Path output) {
+        outputs.add(output);
+        return attemptPath(task, output);
+    }
+
+    private static Path attemptPath(Task task, Path output) {
+        return output.resolveSibling(output.getFileName() + ".attempt" + task.attempt() + ".tmp");
+    }
+
+    // With an in-memory shuffle a map output is buffered on the heap until keepOrWrite decides where it goes.
+    private <A, B> PartitionedWriter<A, B> openMapOutput(Task task, Path output, int partitions, Serializer<A> keys,
+                                                         Serializer<B> values) throws IOException {
+        if (coordinator.getMemoryShuffle() != null) return MemoryRun.newWriter(partitions, keys, values);
+        return PartitionedFile.newWriter(attemptFile(task, output), coordinator.getConfig().shuffleFormat(),
+                partitions, keys, values);
+    }
+
+    // Keeps a heap-buffered output in memory if the budget has room for it, and otherwise writes it to its attempt
+    // file after all. A partitioned output becomes a partitioned file, anything else a plain one; outputs that
+    // were written to disk in the first place are left alone.
+    private <A, B> void keepOrWrite(Task task, Path output, PartitionedWriter<A, B> out, boolean partitioned,
+                                    Serializer<A> keys, Serializer<B> values) throws IOException {
+        if (!(out instanceof MemoryRun.Writer<A, B> buffered)) return;
+        List<MemoryRun> runs = buffered.runs();
+        long bytes = runs.stream().mapToLong(MemoryRun::size).sum();
+        if (coordinator.getMemoryShuffle().tryReserve(bytes)) {
+            memoryOutputs.put(output, runs);
+            reservedBytes += bytes;
+            return;
+        }
+
+        logger.log(Level.FINE, "shuffle memory budget exhausted, writing {0} to disk", output.getFileName());
+        ShuffleFormat format = coordinator.getConfig().shuffleFormat();
+        if (partitioned) {
+            try (PartitionedFile.Writer<A, B> file = PartitionedFile.newWriter(attemptFile(task, output), format,
+                    runs.size(), keys, values)) {
+                for (int p = 0; p < runs.size(); p++) copy(runs.get(p), file.partition(p), keys, values);
+            }
+        } else {
+            try (RecordWriter<A, B> file = format.newWriter(attemptFile(task, output), keys, values)) {
+                copy(runs.get(0), file, keys, values);
+            }
+        }
+    }
+
+    private static <A, B> void copy(MemoryRun run, RecordWriter<A, B> writer, Serializer<A> keys,
+                                    Serializer<B> values) throws IOException {
+        try (RecordReader<A, B> reader = run.newReader(keys, values)) {
+            KeyValue<A, B> kv;
+            while ((kv = reader.next()) != null) writer.write(kv);
+        }
+    }
+
+    // Inputs kept in memory are read from there, everything else from disk; sizes sees the bytes of each.
+    private <A, B> BucketMerger.InputOpener<A, B> opener(Serializer<A> keys, Serializer<B> values,
+                                                          LongConsumer sizes) {
+        BucketMerger.InputOpener<A, B> fromDisk =
+                BucketMerger.fromDisk(coordinator.getConfig().shuffleFormat(), keys, values, sizes);
+        MemoryShuffle memory = coordinator.getMemoryShuffle();
+        if (memory == null) return fromDisk;
+        return input -> {
+            MemoryRun run = memory.find(input);
+            if (run == null) return fromDisk.open(input);
+            sizes.accept(run.size());
+            return run.newReader(keys, values);
+        };
+    }
+
+    private boolean publish(Task task) throws IOException {
+        if (!coordinator.tryCommit(task, counters)) {
+            logger.log(Level.FINE, "attempt {0} of {1} lost to an earlier attempt",
+                    new Object[]{task.attempt(), task.name()});
+            discard(task);
+            return false;
+        }
+        for (Path output : outputs) {
+            Files.move(attemptPath(task, output), output, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        outputs.clear();
+        if (!memoryOutputs.isEmpty()) {
+            memoryOutputs.forEach(coordinator.getMemoryShuffle()::publish);
+            memoryOutputs.clear();
+            reservedBytes = 0;
+        }
+        return true;
+    }
+
+    private void discard(Task task) {
+        for (Path output : outputs) {
+            try {
+                Files.deleteIfExists(attemptPath(task, output));
+            } catch (IOException e) {
+                logger.log(Level.FINE, "could not delete attempt file for {0}", output.getFileName());
+            }
+        }
+        outputs.clear();
+        if (reservedBytes > 0) coordinator.getMemoryShuffle().release(reservedBytes);
+        memoryOutputs.clear();
+        reservedBytes = 0;
+        for (Path spill : spillFiles) {
+            try {
+                Files.deleteIfExists(spill);
+            } catch (IOException e) {
+                logger.log(Level.FINE, "could not delete spill file {0}", spill.getFileName());
+            }
+        }
+        spillFiles.clear();
     }
 
     @Override
@@ -98,26 +604,28 @@ public class Worker implements Runnable {
         try {
             Task task;
             do {
+                long waitStart = System.nanoTime();
                 task = coordinator.takeTask();
+                waitNanos += System.nanoTime() - waitStart;
 
-                if (task == null) {
-                    logger.log(Level.FINE, "no task available, waiting");
-                    if (coordinator.isFinished()) break;
-                    Thread.sleep(10);
-                    continue;
-                }
+                try {
+                    if (task instanceof MapTask mt) {
+                        logger.log(Level.FINE, "processing map task for file: {0}", mt.inputFile().getFileName());
+                        if (executeMap(mt)) coordinator.onMapDone(mt.outputName());
+                        logger.log(Level.FINE, "map task completed for file: {0}", mt.inputFile().getFileName());
+
+                    } else if (task instanceof MergeTask mt) {
+                        logger.log(Level.FINE, "processing merge task for bucket {0}", mt.id());
+                        if (executeMerge(mt)) coordinator.onMergeDone(mt.id(), mt.output());
 
-                if (task instanceof MapTask mt) {
-                    logger.log(Level.FINE, "processing map task for file: {0}", mt.inputFile().getFileName());
-                    executeMap(mt.inputFile(), mt.bucketCount());
-                    coordinator.onMapDone();
-                    logger.log(Level.FINE, "map task completed for file: {0}", mt.inputFile().getFileName());
-
-                } else if (task instanceof ReduceTask rt) {
-                    logger.log(Level.FINE, "processing reduce task for bucket {0}", rt.id());
-                    executeReduce(rt.id(), rt.bucketFile());
-                    coordinator.onReduceDone();
-                    logger.log(Level.FINE, "reduce task completed for bucket {0}", rt.id());
+                    } else if (task instanceof ReduceTask rt) {
+                        logger.log(Level.FINE, "processing reduce task for bucket {0}", rt.id());
+                        if (executeReduce(rt)) coordinator.onReduceDone();
+                        logger.log(Level.FINE, "reduce task completed for bucket {0}", rt.id());
+                    }
+                } catch (Exception e) {
+                    discard(task);
+                    coordinator.onTaskFailed(task, e);
                 }
 
             } while (task != ExitTask.getInstance());
@@ -0,0 +1,166 @@
+package mp.io;
+
+import mp.model.KeyValue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+final class BinaryRecordReader<K, V> implements RecordReader<K, V> {
+    private final Object source;
+    private final FileChannel channel;
+    private final ByteBuffer memory;
+    private final long end;
+    private long position;
+    private final Serializer<K> keys;
+    private final Serializer<V> values;
+    private final LongSerializer longValues;
+    private final Inflater inflater;
+    private final ByteBuffer header = ByteBuffer.allocate(8);
+    private ByteBuffer block = ByteBuffer.allocate(BinaryRecordWriter.BLOCK_SIZE);
+    private byte[] stored = new byte[0];
+    // state of a block stored with BLOCK_KEY_RUNS: where its bitmap starts and the record about to be read
+    private boolean keyRuns;
+    private int bitmapStart;
+    private int record;
+    private K previousKey;
+
+    BinaryRecordReader(Path file, Serializer<K> keys, Serializer<V> values) throws IOException {
+        this(file, FileChannel.open(file, StandardOpenOption.READ), 0, -1, keys, values);
+    }
+
+    // Reads the stream stored in [start, end) of the channel, or up to the end of the file when end is negative;
+    // the reader owns the channel and closes it.
+    BinaryRecordReader(Path file, FileChannel channel, long start, long end, Serializer<K> keys, Serializer<V> values)
+            throws IOException {
+        this(file, channel, null, start, end < 0 ? channel.size() : end, keys, values);
+    }
+
+    // Reads a stream held on the heap, see MemoryRun.
+    BinaryRecordReader(String name, ByteBuffer memory, Serializer<K> keys, Serializer<V> values) throws IOException {
+        this(name, null, memory, 0, memory.limit(), keys, values);
+    }
+
+    private BinaryRecordReader(Object source, FileChannel channel, ByteBuffer memory, long start, long end,
+                               Serializer<K> keys, Serializer<V> values) throws IOException {
+        this.source = source;
+        this.keys = keys;
+        this.values = values;
+        this.longValues = values instanceof LongSerializer longs ? longs : null;
+        this.channel = channel;
+        this.memory = memory;
+        this.position = start;
+        this.end = end;
+
+        ByteBuffer fileHeader = ByteBuffer.allocate(5);
+        if (!readFully(fileHeader) || fileHeader.flip().getInt() != BinaryRecordWriter.MAGIC) {
+            close();
+            throw new IOException("not a binary shuffle file: " + source);
+        }
+        this.inflater = (fileHeader.get() & BinaryRecordWriter.FLAG_DEFLATE) != 0 ? new Inflater() : null;
+        block.limit(0);
+    }
+
+    @Override
+    public KeyValue<K, V> next() throws IOException {
+        if (!block.hasRemaining() && !readBlock()) return null;
+        K key = readKey();
+        V value = values.read(block);
+        return new KeyValue<>(key, value);
+    }
+
+    @Override
+    public boolean nextLong(ObjLongConsumer<? super K> action) throws IOException {
+        if (longValues == null) return RecordReader.super.nextLong(action);
+        if (!block.hasRemaining() && !readBlock()) return false;
+        K key = readKey();
+        action.accept(key, longValues.readLong(block));
+        return true;
+    }
+
+    private K readKey() {
+        K key = keyRuns && (block.get(bitmapStart + (record >> 3)) & 1 << (record & 7)) != 0
+                ? previousKey
+                : keys.read(block);
+        record++;
+        previousKey = key;
+        return key;
+    }
+
+    private boolean readBlock() throws IOException {
+        header.clear();
+        if (!readFully(header)) return false;
+        header.flip();
+        int rawLength = header.getInt();
+        int storedLength = header.getInt();
+        keyRuns = (rawLength & BinaryRecordWriter.BLOCK_KEY_RUNS) != 0;
+        rawLength &= ~BinaryRecordWriter.BLOCK_KEY_RUNS;
+
+        if (block.capacity() < rawLength) block = ByteBuffer.allocate(rawLength);
+        block.clear().limit(rawLength);
+
+        if (inflater == null) {
+            if (!readFully(block)) throw new EOFException("truncated block in " + source);
+            block.flip();
+            return startBlock();
+        }
+
+        if (stored.length < storedLength) stored = new byte[storedLength];
+        if (!readFully(ByteBuffer.wrap(stored, 0, storedLength))) {
+            throw new EOFException("truncated block in " + source);
+        }
+        inflater.reset();
+        inflater.setInput(stored, 0, storedLength);
+        try {
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                inflated += inflater.inflate(block.array(), inflated, rawLength - inflated);
+            }
+            if (inflated != rawLength) throw new IOException("corrupt block in " + source);
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt block in " + source, e);
+        }
+        block.position(0).limit(rawLength);
+        return startBlock();
+    }
+
+    private boolean startBlock() {
+        if (keyRuns) {
+            int count = VarInts.getInt(block);
+            bitmapStart = block.position();
+            block.position(bitmapStart + (count + 7) / 8);
+            record = 0;
+        }
+        return true;
+    }
+
+    private boolean readFully(ByteBuffer buffer) throws IOException {
+        long available = end - position;
+        if (available == 0) return false;
+        if (buffer.remaining() > available) throw new EOFException("unexpected end of " + source);
+        if (memory != null) {
+            int length = buffer.remaining();
+            buffer.put(memory.slice((int) position, length));
+            position += length;
+            return true;
+        }
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new EOFException("unexpected end of " + source);
+            position += n;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (inflater != null) inflater.end();
+        if (channel != null) channel.close();
+    }
+}
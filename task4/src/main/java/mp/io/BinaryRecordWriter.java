@@ -0,0 +1,197 @@
+package mp.io;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.zip.Deflater;
+
+// File layout: magic, flags, then blocks of [rawLength][storedLength][payload].
+// A block payload is a run of records, each the serialized key followed by the serialized value. A block whose
+// sorted records repeat keys instead sets BLOCK_KEY_RUNS in rawLength and stores each run of equal keys once,
+// see encodeKeyRuns.
+final class BinaryRecordWriter<K, V> implements RecordWriter<K, V> {
+    static final int MAGIC = 0x4D525348;
+    static final byte FLAG_DEFLATE = 1;
+    static final int BLOCK_SIZE = 64 * 1024;
+    static final int BLOCK_KEY_RUNS = 0x80000000;
+
+    private final WritableByteChannel channel;
+    private final boolean closeChannel;
+    private final Serializer<K> keys;
+    private final Serializer<V> values;
+    private final LongSerializer longValues;
+    private final Deflater deflater;
+    private final ByteBuffer header = ByteBuffer.allocate(8);
+    private ByteBuffer block = ByteBuffer.allocate(BLOCK_SIZE);
+    private byte[] compressed = new byte[0];
+    // records of the current block, which of them left out a key equal to the one before, and where that key is
+    private final BitSet repeatedKeys = new BitSet();
+    private int records;
+    private int keyStart;
+    private int keyEnd;
+    private ByteBuffer encoded = ByteBuffer.allocate(0);
+
+    BinaryRecordWriter(Path file, Serializer<K> keys, Serializer<V> values, boolean deflate) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING), true, keys, values, deflate);
+    }
+
+    // Appends at the channel's position; a writer that does not own the channel leaves it open on close.
+    BinaryRecordWriter(WritableByteChannel channel, boolean closeChannel, Serializer<K> keys, Serializer<V> values,
+                       boolean deflate) throws IOException {
+        this.keys = keys;
+        this.values = values;
+        this.longValues = values instanceof LongSerializer longs ? longs : null;
+        this.channel = channel;
+        this.closeChannel = closeChannel;
+        this.deflater = deflate ? new Deflater(Deflater.BEST_SPEED) : null;
+
+        ByteBuffer fileHeader = ByteBuffer.allocate(5);
+        fileHeader.putInt(MAGIC).put(deflate ? FLAG_DEFLATE : 0).flip();
+        writeFully(fileHeader);
+    }
+
+    @Override
+    public void write(K key, V value) throws IOException {
+        if (tryWrite(key, value)) return;
+        flushBlock();
+        while (!tryWrite(key, value)) {
+            block = ByteBuffer.allocate(block.capacity() * 2);
+        }
+    }
+
+    @Override
+    public void writeLong(K key, long value) throws IOException {
+        if (longValues == null) {
+            RecordWriter.super.writeLong(key, value);
+            return;
+        }
+        if (tryWriteLong(key, value)) return;
+        flushBlock();
+        while (!tryWriteLong(key, value)) {
+            block = ByteBuffer.allocate(block.capacity() * 2);
+        }
+    }
+
+    private boolean tryWrite(K key, V value) {
+        int start = block.position();
+        try {
+            int end = putKey(key, start);
+            values.write(value, block);
+            endRecord(start, end);
+            return true;
+        } catch (BufferOverflowException e) {
+            block.position(start);
+            return false;
+        }
+    }
+
+    private boolean tryWriteLong(K key, long value) {
+        int start = block.position();
+        try {
+            int end = putKey(key, start);
+            longValues.writeLong(value, block);
+            endRecord(start, end);
+            return true;
+        } catch (BufferOverflowException e) {
+            block.position(start);
+            return false;
+        }
+    }
+
+    // A key equal to the previous record's is serialized, compared and dropped again, so the block holds only
+    // the value; the bit set for the record tells readers to reuse the key. Returns where the key ends, or -1 if
+    // it was dropped.
+    private int putKey(K key, int start) {
+        keys.write(key, block);
+        int end = block.position();
+        if (records > 0 && Arrays.equals(block.array(), keyStart, keyEnd, block.array(), start, end)) {
+            block.position(start);
+            return -1;
+        }
+        return end;
+    }
+
+    private void endRecord(int start, int end) {
+        if (end < 0) {
+            repeatedKeys.set(records);
+        } else {
+            keyStart = start;
+            keyEnd = end;
+        }
+        records++;
+    }
+
+    private void flushBlock() throws IOException {
+        if (block.position() == 0) return;
+        block.flip();
+        boolean keyRuns = !repeatedKeys.isEmpty();
+        ByteBuffer raw = keyRuns ? encodeKeyRuns() : block;
+        int rawLength = raw.limit();
+
+        ByteBuffer payload = raw;
+        if (deflater != null) {
+            deflater.reset();
+            deflater.setInput(raw.array(), 0, rawLength);
+            deflater.finish();
+            if (compressed.length < rawLength + 64) compressed = new byte[rawLength + 64];
+            int storedLength = 0;
+            while (!deflater.finished()) {
+                if (storedLength == compressed.length) {
+                    byte[] grown = new byte[compressed.length * 2];
+                    System.arraycopy(compressed, 0, grown, 0, storedLength);
+                    compressed = grown;
+                }
+                storedLength += deflater.deflate(compressed, storedLength, compressed.length - storedLength);
+            }
+            payload = ByteBuffer.wrap(compressed, 0, storedLength);
+        }
+
+        header.clear();
+        header.putInt(keyRuns ? rawLength | BLOCK_KEY_RUNS : rawLength).putInt(payload.remaining()).flip();
+        writeFully(header);
+        writeFully(payload);
+        block.clear();
+        records = 0;
+        repeatedKeys.clear();
+    }
+
+    // Layout: the record count, a bitmap with a bit set for every record whose key equals the previous one, then
+    // the records with those keys left out. Readers hand out the key they already decoded instead of a new copy,
+    // so a run of equal keys is stored and deserialized once per block.
+    private ByteBuffer encodeKeyRuns() {
+        int bitmapBytes = (records + 7) / 8;
+        int capacity = 5 + bitmapBytes + block.limit();
+        if (encoded.capacity() < capacity) encoded = ByteBuffer.allocate(capacity);
+        encoded.clear();
+        VarInts.putInt(encoded, records);
+        byte[] bitmap = repeatedKeys.toByteArray();
+        encoded.put(bitmap);
+        // toByteArray stops at the last set bit
+        for (int i = bitmap.length; i < bitmapBytes; i++) encoded.put((byte) 0);
+        encoded.put(block.array(), 0, block.limit());
+        return encoded.flip();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBlock();
+        } finally {
+            if (deflater != null) deflater.end();
+            if (closeChannel) channel.close();
+        }
+    }
+}
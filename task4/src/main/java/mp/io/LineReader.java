@@ -0,0 +1,9 @@
+package mp.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface LineReader extends Closeable {
+    // Returns the next line without its terminator, or null once the input is exhausted.
+    String readLine() throws IOException;
+}
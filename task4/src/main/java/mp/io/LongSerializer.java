@@ -0,0 +1,40 @@
+package mp.io;
+
+import java.nio.ByteBuffer;
+
+// Zig-zag varint longs, so small values of either sign take a byte or two. Binary readers and writers call
+// readLong and writeLong for RecordReader.nextLong and RecordWriter.writeLong, which never box the value.
+public final class LongSerializer implements Serializer<Long> {
+
+    LongSerializer() {
+    }
+
+    public void writeLong(long value, ByteBuffer buffer) {
+        VarInts.putLong(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    public long readLong(ByteBuffer buffer) {
+        long encoded = VarInts.getLong(buffer);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    @Override
+    public void write(Long value, ByteBuffer buffer) {
+        writeLong(value, buffer);
+    }
+
+    @Override
+    public Long read(ByteBuffer buffer) {
+        return readLong(buffer);
+    }
+
+    @Override
+    public String toText(Long value) {
+        return value.toString();
+    }
+
+    @Override
+    public Long fromText(String text) {
+        return Long.parseLong(text);
+    }
+}
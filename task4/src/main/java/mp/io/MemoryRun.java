@@ -0,0 +1,99 @@
+package mp.io;
+
+import mp.model.KeyValue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// A sorted stream of records held on the heap instead of in a file. It is always in the binary format, which is
+// the most compact one; a shuffle format chosen for readable files has nobody to read it here.
+public final class MemoryRun {
+    private static final MemoryRun EMPTY = new MemoryRun(new byte[0]);
+
+    private final byte[] bytes;
+
+    private MemoryRun(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public static <K, V> Writer<K, V> newWriter(int partitions, Serializer<K> keys, Serializer<V> values) {
+        return new Writer<>(partitions, keys, values);
+    }
+
+    public long size() {
+        return bytes.length;
+    }
+
+    public <K, V> RecordReader<K, V> newReader(Serializer<K> keys, Serializer<V> values) throws IOException {
+        if (bytes.length == 0) {
+            return new RecordReader<>() {
+                @Override
+                public KeyValue<K, V> next() {
+                    return null;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+        return new BinaryRecordReader<>("in-memory run", ByteBuffer.wrap(bytes), keys, values);
+    }
+
+    // Buffers each partition into its own run; one that is never asked for stays empty.
+    public static final class Writer<K, V> implements PartitionedWriter<K, V> {
+        private final Serializer<K> keys;
+        private final Serializer<V> values;
+        private final List<MemoryRun> runs;
+        private int next;
+        private ByteArrayOutputStream buffer;
+        private RecordWriter<K, V> current;
+
+        private Writer(int partitions, Serializer<K> keys, Serializer<V> values) {
+            this.keys = keys;
+            this.values = values;
+            this.runs = new ArrayList<>(Collections.nCopies(partitions, EMPTY));
+        }
+
+        @Override
+        public RecordWriter<K, V> partition(int partition) throws IOException {
+            if (partition < next || partition >= runs.size()) {
+                throw new IllegalArgumentException("partition " + partition + " cannot follow " + (next - 1));
+            }
+            finishCurrent();
+            next = partition + 1;
+            buffer = new ByteArrayOutputStream();
+            current = new BinaryRecordWriter<>(Channels.newChannel(buffer), true, keys, values, false);
+            runs.set(partition, null);
+            return current;
+        }
+
+        @Override
+        public long length(int partition) {
+            return runs.get(partition).size();
+        }
+
+        // One run per partition, complete once the writer is closed.
+        public List<MemoryRun> runs() {
+            return Collections.unmodifiableList(runs);
+        }
+
+        private void finishCurrent() throws IOException {
+            if (current == null) return;
+            current.close();
+            runs.set(next - 1, new MemoryRun(buffer.toByteArray()));
+            current = null;
+            buffer = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            finishCurrent();
+        }
+    }
+}
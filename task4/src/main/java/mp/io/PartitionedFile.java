@@ -0,0 +1,168 @@
+package mp.io;
+
+import mp.model.KeyValue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjLongConsumer;
+
+// One map output holding every partition. Each partition is a complete stream of the shuffle format, written one
+// after another, and an index at the end records where each starts so a reader seeks straight to its own.
+// Layout: segment 0 .. segment n-1, then n + 1 offsets as longs, n as an int and a magic int.
+public final class PartitionedFile {
+    static final int INDEX_MAGIC = 0x4D524958;
+    private static final int TRAILER_BYTES = 8;
+
+    private PartitionedFile() {
+    }
+
+    public static <K, V> Writer<K, V> newWriter(Path file, ShuffleFormat format, int partitions, Serializer<K> keys,
+                                                Serializer<V> values) throws IOException {
+        return new Writer<>(file, format, partitions, keys, values);
+    }
+
+    public static <K, V> Segment<K, V> openPartition(Path file, int partition, ShuffleFormat format,
+                                                     Serializer<K> keys, Serializer<V> values) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            readFully(channel, trailer, size - TRAILER_BYTES, file);
+            int partitions = trailer.flip().getInt();
+            if (trailer.getInt() != INDEX_MAGIC) throw new IOException("not a partitioned shuffle file: " + file);
+            if (partition < 0 || partition >= partitions) {
+                throw new IOException("partition " + partition + " out of range in " + file + " with " + partitions);
+            }
+
+            ByteBuffer bounds = ByteBuffer.allocate(2 * Long.BYTES);
+            long indexStart = size - TRAILER_BYTES - (long) (partitions + 1) * Long.BYTES;
+            readFully(channel, bounds, indexStart + (long) partition * Long.BYTES, file);
+            long start = bounds.flip().getLong();
+            long end = bounds.getLong();
+            RecordReader<K, V> reader = start == end
+                    ? empty(channel)
+                    : format.newSegmentReader(file, channel, start, end, keys, values);
+            return new Segment<>(reader, end - start);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position, Path file)
+            throws IOException {
+        if (position < 0) throw new IOException("truncated partitioned shuffle file: " + file);
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new IOException("truncated partitioned shuffle file: " + file);
+            position += n;
+        }
+    }
+
+    private static <K, V> RecordReader<K, V> empty(FileChannel channel) {
+        return new RecordReader<>() {
+            @Override
+            public KeyValue<K, V> next() {
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+
+    // Partitions are written in ascending order; one that is never asked for is stored empty.
+    public static final class Writer<K, V> implements PartitionedWriter<K, V> {
+        private final FileChannel channel;
+        private final ShuffleFormat format;
+        private final Serializer<K> keys;
+        private final Serializer<V> values;
+        private final long[] offsets;
+        private int next;
+        private RecordWriter<K, V> current;
+
+        private Writer(Path file, ShuffleFormat format, int partitions, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.format = format;
+            this.keys = keys;
+            this.values = values;
+            this.offsets = new long[partitions + 1];
+        }
+
+        @Override
+        public RecordWriter<K, V> partition(int partition) throws IOException {
+            if (partition < next || partition >= offsets.length - 1) {
+                throw new IllegalArgumentException("partition " + partition + " cannot follow " + (next - 1));
+            }
+            finishCurrent();
+            while (next < partition) offsets[next++] = channel.position();
+            offsets[next++] = channel.position();
+            current = format.newSegmentWriter(channel, keys, values);
+            return current;
+        }
+
+        @Override
+        public long length(int partition) {
+            return offsets[partition + 1] - offsets[partition];
+        }
+
+        private void finishCurrent() throws IOException {
+            if (current == null) return;
+            current.close();
+            current = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                finishCurrent();
+                int partitions = offsets.length - 1;
+                while (next < partitions) offsets[next++] = channel.position();
+                offsets[partitions] = channel.position();
+
+                ByteBuffer index = ByteBuffer.allocate(offsets.length * Long.BYTES + TRAILER_BYTES);
+                for (long offset : offsets) index.putLong(offset);
+                index.putInt(partitions).putInt(INDEX_MAGIC).flip();
+                while (index.hasRemaining()) channel.write(index);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    public static final class Segment<K, V> implements RecordReader<K, V> {
+        private final RecordReader<K, V> reader;
+        private final long length;
+
+        private Segment(RecordReader<K, V> reader, long length) {
+            this.reader = reader;
+            this.length = length;
+        }
+
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public KeyValue<K, V> next() throws IOException {
+            return reader.next();
+        }
+
+        @Override
+        public boolean nextLong(ObjLongConsumer<? super K> action) throws IOException {
+            return reader.nextLong(action);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
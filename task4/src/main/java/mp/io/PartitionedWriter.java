@@ -0,0 +1,13 @@
+package mp.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Writes the partitions of one map output in ascending order.
+public interface PartitionedWriter<K, V> extends Closeable {
+    // The returned writer is valid until the next call or close.
+    RecordWriter<K, V> partition(int partition) throws IOException;
+
+    // Bytes stored for a partition; known once the writer is closed.
+    long length(int partition);
+}
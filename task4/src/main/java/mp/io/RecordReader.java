@@ -0,0 +1,22 @@
+package mp.io;
+
+import mp.model.KeyValue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.ObjLongConsumer;
+
+public interface RecordReader<K, V> extends Closeable {
+    // Returns the next record, or null once the file is exhausted.
+    KeyValue<K, V> next() throws IOException;
+
+    // For records with long values: passes the next one to action and returns true, or returns false once the file
+    // is exhausted. Binary readers with a LongSerializer decode the value without boxing it. A reader is read
+    // either with next or with nextLong, not both.
+    default boolean nextLong(ObjLongConsumer<? super K> action) throws IOException {
+        KeyValue<K, V> kv = next();
+        if (kv == null) return false;
+        action.accept(kv.key(), (Long) kv.value());
+        return true;
+    }
+}
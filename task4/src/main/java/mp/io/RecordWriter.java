@@ -0,0 +1,20 @@
+package mp.io;
+
+import mp.model.KeyValue;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface RecordWriter<K, V> extends Closeable {
+    void write(K key, V value) throws IOException;
+
+    default void write(KeyValue<K, V> kv) throws IOException {
+        write(kv.key(), kv.value());
+    }
+
+    // For writers of long values; binary writers with a LongSerializer encode the value without boxing it.
+    @SuppressWarnings("unchecked")
+    default void writeLong(K key, long value) throws IOException {
+        write(key, (V) Long.valueOf(value));
+    }
+}
@@ -0,0 +1,13 @@
+package mp.io;
+
+import java.nio.ByteBuffer;
+
+// Encodes values of one type for the shuffle: binary into a block buffer, text for the debugging format.
+// write may throw BufferOverflowException; the caller then retries with more space.
+public interface Serializer<T> {
+    void write(T value, ByteBuffer buffer);
+    T read(ByteBuffer buffer);
+
+    String toText(T value);
+    T fromText(String text);
+}
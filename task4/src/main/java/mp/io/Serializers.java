@@ -0,0 +1,70 @@
+package mp.io;
+
+import mp.model.KeyValue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public final class Serializers {
+    public static final Serializer<String> STRING = new StringSerializer();
+    public static final LongSerializer LONG = new LongSerializer();
+
+    private Serializers() {
+    }
+
+    // The key and then the value; as text they are separated by a tab, so the key must not contain one.
+    public static <A, B> Serializer<KeyValue<A, B>> keyValue(Serializer<A> keys, Serializer<B> values) {
+        return new Serializer<>() {
+            @Override
+            public void write(KeyValue<A, B> value, ByteBuffer buffer) {
+                keys.write(value.key(), buffer);
+                values.write(value.value(), buffer);
+            }
+
+            @Override
+            public KeyValue<A, B> read(ByteBuffer buffer) {
+                A key = keys.read(buffer);
+                return new KeyValue<>(key, values.read(buffer));
+            }
+
+            @Override
+            public String toText(KeyValue<A, B> value) {
+                return keys.toText(value.key()) + '\t' + values.toText(value.value());
+            }
+
+            @Override
+            public KeyValue<A, B> fromText(String text) {
+                int tab = text.indexOf('\t');
+                return new KeyValue<>(keys.fromText(text.substring(0, tab)), values.fromText(text.substring(tab + 1)));
+            }
+        };
+    }
+
+    private static final class StringSerializer implements Serializer<String> {
+        @Override
+        public void write(String value, ByteBuffer buffer) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            VarInts.putInt(buffer, bytes.length);
+            buffer.put(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer buffer) {
+            int length = VarInts.getInt(buffer);
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        @Override
+        public String toText(String value) {
+            return value;
+        }
+
+        @Override
+        public String fromText(String text) {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package mp.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+public enum ShuffleFormat {
+    TEXT(".txt") {
+        @Override
+        public <K, V> RecordWriter<K, V> newWriter(Path file, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new TextRecordWriter<>(file, keys, values);
+        }
+
+        @Override
+        public <K, V> RecordReader<K, V> newReader(Path file, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new TextRecordReader<>(file, keys, values);
+        }
+
+        @Override
+        <K, V> RecordWriter<K, V> newSegmentWriter(FileChannel channel, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new TextRecordWriter<>(channel, keys, values);
+        }
+
+        @Override
+        <K, V> RecordReader<K, V> newSegmentReader(Path file, FileChannel channel, long start, long end,
+                                                   Serializer<K> keys, Serializer<V> values) throws IOException {
+            return new TextRecordReader<>(channel, start, end, keys, values);
+        }
+    },
+    BINARY(".bin") {
+        @Override
+        public <K, V> RecordWriter<K, V> newWriter(Path file, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new BinaryRecordWriter<>(file, keys, values, false);
+        }
+
+        @Override
+        public <K, V> RecordReader<K, V> newReader(Path file, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new BinaryRecordReader<>(file, keys, values);
+        }
+
+        @Override
+        <K, V> RecordWriter<K, V> newSegmentWriter(FileChannel channel, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new BinaryRecordWriter<>(channel, false, keys, values, false);
+        }
+
+        @Override
+        <K, V> RecordReader<K, V> newSegmentReader(Path file, FileChannel channel, long start, long end,
+                                                   Serializer<K> keys, Serializer<V> values) throws IOException {
+            return new BinaryRecordReader<>(file, channel, start, end, keys, values);
+        }
+    },
+    BINARY_DEFLATE(".bin") {
+        @Override
+        public <K, V> RecordWriter<K, V> newWriter(Path file, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new BinaryRecordWriter<>(file, keys, values, true);
+        }
+
+        @Override
+        public <K, V> RecordReader<K, V> newReader(Path file, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new BinaryRecordReader<>(file, keys, values);
+        }
+
+        @Override
+        <K, V> RecordWriter<K, V> newSegmentWriter(FileChannel channel, Serializer<K> keys, Serializer<V> values)
+                throws IOException {
+            return new BinaryRecordWriter<>(channel, false, keys, values, true);
+        }
+
+        @Override
+        <K, V> RecordReader<K, V> newSegmentReader(Path file, FileChannel channel, long start, long end,
+                                                   Serializer<K> keys, Serializer<V> values) throws IOException {
+            return new BinaryRecordReader<>(file, channel, start, end, keys, values);
+        }
+    };
+
+    private final String extension;
+
+    ShuffleFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public abstract <K, V> RecordWriter<K, V> newWriter(Path file, Serializer<K> keys, Serializer<V> values)
+            throws IOException;
+
+    public abstract <K, V> RecordReader<K, V> newReader(Path file, Serializer<K> keys, Serializer<V> values)
+            throws IOException;
+
+    // Segments are complete streams of this format stored back to back in one file, see PartitionedFile.
+    abstract <K, V> RecordWriter<K, V> newSegmentWriter(FileChannel channel, Serializer<K> keys, Serializer<V> values)
+            throws IOException;
+
+    abstract <K, V> RecordReader<K, V> newSegmentReader(Path file, FileChannel channel, long start, long end,
+                                                        Serializer<K> keys, Serializer<V> values) throws IOException;
+}
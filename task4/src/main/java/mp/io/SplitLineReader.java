@@ -0,0 +1,68 @@
+package mp.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Reads the lines owned by the byte range [start, start + length) of a file using positional channel reads.
+// A line belongs to the split containing its first byte, so a split skips the partial line it starts in
+// and reads past its end to finish its last line.
+public final class SplitLineReader implements LineReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final long end;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long position;
+    private byte[] line = new byte[256];
+
+    public SplitLineReader(Path file, long start, long length) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.end = Math.min(channel.size(), length > Long.MAX_VALUE - start ? Long.MAX_VALUE : start + length);
+        this.position = start;
+        buffer.limit(0);
+
+        if (start > 0) {
+            position = start - 1;
+            int b;
+            while ((b = read()) >= 0 && b != '\n') {
+                // skip the tail of the line owned by the previous split
+            }
+        }
+    }
+
+    @Override
+    public String readLine() throws IOException {
+        if (position >= end) return null;
+
+        int length = 0;
+        int b;
+        while ((b = read()) >= 0 && b != '\n') {
+            if (length == line.length) line = Arrays.copyOf(line, length * 2);
+            line[length++] = (byte) b;
+        }
+        if (b < 0 && length == 0) return null;
+        if (length > 0 && line[length - 1] == '\r') length--;
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int read() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int n = channel.read(buffer, position);
+            buffer.flip();
+            if (n <= 0) return -1;
+        }
+        position++;
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
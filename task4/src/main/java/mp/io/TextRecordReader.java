@@ -0,0 +1,83 @@
+package mp.io;
+
+import mp.model.KeyValue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class TextRecordReader<K, V> implements RecordReader<K, V> {
+    private final BufferedReader reader;
+    private final Serializer<K> keys;
+    private final Serializer<V> values;
+
+    TextRecordReader(Path file, Serializer<K> keys, Serializer<V> values) throws IOException {
+        this(Files.newBufferedReader(file, StandardCharsets.UTF_8), keys, values);
+    }
+
+    // Reads the lines stored in [start, end) of the channel; the reader owns the channel and closes it.
+    TextRecordReader(FileChannel channel, long start, long end, Serializer<K> keys, Serializer<V> values) {
+        this(new BufferedReader(new InputStreamReader(new SegmentInputStream(channel, start, end),
+                StandardCharsets.UTF_8)), keys, values);
+    }
+
+    private TextRecordReader(BufferedReader reader, Serializer<K> keys, Serializer<V> values) {
+        this.reader = reader;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @Override
+    public KeyValue<K, V> next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int tab = line.indexOf('\t');
+            if (tab >= 0) {
+                return new KeyValue<>(keys.fromText(line.substring(0, tab)), values.fromText(line.substring(tab + 1)));
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static final class SegmentInputStream extends InputStream {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        SegmentInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= end) return -1;
+            int n = channel.read(ByteBuffer.wrap(buffer, offset, (int) Math.min(length, end - position)), position);
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package mp.io;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Human-readable "key<TAB>value" lines; keys must not contain tabs or line breaks.
+final class TextRecordWriter<K, V> implements RecordWriter<K, V> {
+    private final BufferedWriter writer;
+    private final Serializer<K> keys;
+    private final Serializer<V> values;
+    private final boolean closeWriter;
+
+    TextRecordWriter(Path file, Serializer<K> keys, Serializer<V> values) throws IOException {
+        this(Files.newBufferedWriter(file, StandardCharsets.UTF_8), true, keys, values);
+    }
+
+    // Appends at the channel's position and leaves the channel open on close.
+    TextRecordWriter(FileChannel channel, Serializer<K> keys, Serializer<V> values) {
+        this(new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8)),
+                false, keys, values);
+    }
+
+    private TextRecordWriter(BufferedWriter writer, boolean closeWriter, Serializer<K> keys, Serializer<V> values) {
+        this.writer = writer;
+        this.closeWriter = closeWriter;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @Override
+    public void write(K key, V value) throws IOException {
+        writer.write(keys.toText(key));
+        writer.write('\t');
+        writer.write(values.toText(value));
+        writer.newLine();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeWriter) {
+            writer.close();
+        } else {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package mp.logic;
+
+import mp.io.Serializer;
+import mp.model.KeyValue;
+
+import java.util.List;
+
+// Logic of a JobGraph stage that maps the records the stages before it reduced to, instead of text lines.
+// IK and IV are the key and value types of those stages, and the input serializers must be theirs.
+public interface ChainedLogic<IK, IV, K extends Comparable<K>, V> extends WorkerLogic<K, V> {
+    List<KeyValue<K, V>> map(IK key, IV value);
+
+    Serializer<IK> inputKeySerializer();
+    Serializer<IV> inputValueSerializer();
+
+    @Override
+    default List<KeyValue<K, V>> map(String content) {
+        throw new UnsupportedOperationException(getClass().getName() + " maps the records of an earlier stage");
+    }
+}
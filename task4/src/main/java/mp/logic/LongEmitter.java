@@ -0,0 +1,6 @@
+package mp.logic;
+
+@FunctionalInterface
+public interface LongEmitter<K> {
+    void emit(K key, long value);
+}
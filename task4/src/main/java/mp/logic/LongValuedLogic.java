@@ -0,0 +1,96 @@
+package mp.logic;
+
+import mp.io.RecordReader;
+import mp.io.Serializer;
+import mp.io.Serializers;
+import mp.model.KeyValue;
+import mp.model.LongTable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+// Logic whose values are longs folded with an associative mergeValues, such as counts or sums.
+// Workers recognise it and aggregate emitted values as primitives instead of building KeyValue lists;
+// reduce reads the values with RecordReader.nextLong, folds them into a hash table and sorts only the distinct keys,
+// in outputOrder, when emitting lines.
+public interface LongValuedLogic<K extends Comparable<K>> extends WorkerLogic<K, Long> {
+    void map(String content, LongEmitter<K> emitter);
+    long mergeValues(long left, long right);
+
+    @Override
+    default List<KeyValue<K, Long>> map(String content) {
+        List<KeyValue<K, Long>> result = new ArrayList<>();
+        map(content, (key, value) -> result.add(new KeyValue<>(key, value)));
+        return result;
+    }
+
+    @Override
+    default List<KeyValue<K, Long>> combine(List<KeyValue<K, Long>> keyValues) {
+        LongTable<K> table = new LongTable<>(this::mergeValues);
+        for (KeyValue<K, Long> kv : keyValues) {
+            table.add(kv.key(), kv.value());
+        }
+
+        List<KeyValue<K, Long>> result = new ArrayList<>(table.size());
+        table.forEach((key, value) -> result.add(new KeyValue<>(key, value)));
+        return result;
+    }
+
+    @Override
+    default List<String> reduce(List<KeyValue<K, Long>> keyValues) {
+        LongTable<K> table = new LongTable<>(this::mergeValues);
+        for (KeyValue<K, Long> kv : keyValues) {
+            table.add(kv.key(), kv.value());
+        }
+        return emit(table);
+    }
+
+    @Override
+    default List<String> reduce(RecordReader<K, Long> records) throws IOException {
+        return emit(fold(records));
+    }
+
+    // The folded value of every key, in outputOrder.
+    @Override
+    default List<KeyValue<K, Long>> reduceRecords(RecordReader<K, Long> records) throws IOException {
+        LongTable<K> table = fold(records);
+        List<KeyValue<K, Long>> result = new ArrayList<>(table.size());
+        for (K key : table.sortedKeys(outputOrder())) {
+            result.add(new KeyValue<>(key, table.get(key)));
+        }
+        return result;
+    }
+
+    default Comparator<? super K> outputOrder() {
+        return Comparator.naturalOrder();
+    }
+
+    default String formatOutput(K key, long value) {
+        return key + " " + value;
+    }
+
+    private LongTable<K> fold(RecordReader<K, Long> records) throws IOException {
+        LongTable<K> table = new LongTable<>(this::mergeValues);
+        ObjLongConsumer<K> add = table::add;
+        while (records.nextLong(add)) {
+            // every record is folded by add
+        }
+        return table;
+    }
+
+    private List<String> emit(LongTable<K> table) {
+        List<String> lines = new ArrayList<>(table.size());
+        for (K key : table.sortedKeys(outputOrder())) {
+            lines.add(formatOutput(key, table.get(key)));
+        }
+        return lines;
+    }
+
+    @Override
+    default Serializer<Long> valueSerializer() {
+        return Serializers.LONG;
+    }
+}
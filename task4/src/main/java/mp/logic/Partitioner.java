@@ -0,0 +1,12 @@
+package mp.logic;
+
+// Chooses the bucket, and so the reduce task, of every key a map emits. All records of a key must land in the
+// same bucket, so a partitioner may only look at the key.
+@FunctionalInterface
+public interface Partitioner<K> {
+    int partition(K key, int numBuckets);
+
+    static <K> Partitioner<K> hash() {
+        return (key, numBuckets) -> Math.floorMod(key.hashCode(), numBuckets);
+    }
+}
@@ -0,0 +1,93 @@
+package mp.logic;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Balances buckets on key frequencies estimated from a sample of the input. Keys that are frequent in the
+// sample are pinned to explicit buckets; every other key is hashed by a fallback partitioner into one of many
+// small slots, and slots are then mapped to buckets. Pinned keys and slots are placed largest first on the
+// currently lightest bucket, which evens buckets out as far as whole keys allow: a single key bigger than an
+// average bucket still ends up with a bucket to itself.
+public final class SamplingPartitioner<K> implements Partitioner<K> {
+    // Keys holding at least 1/HOT_KEY_DIVISOR of an average bucket in the sample are pinned.
+    static final int HOT_KEY_DIVISOR = 16;
+    static final int MAX_PINNED_KEYS = 1024;
+    static final int SLOTS_PER_BUCKET = 32;
+
+    private final Partitioner<K> fallback;
+    private final Map<K, Integer> pinned;
+    private final int[] slots;
+
+    public SamplingPartitioner(Partitioner<K> fallback, Map<K, Integer> pinned, int[] slots) {
+        this.fallback = fallback;
+        this.pinned = Map.copyOf(pinned);
+        this.slots = slots.clone();
+    }
+
+    public static <K> SamplingPartitioner<K> balance(Map<K, Long> sampledCounts, int numBuckets,
+                                                     Partitioner<K> fallback) {
+        long total = 0;
+        for (long count : sampledCounts.values()) total += count;
+        long threshold = Math.max(1, total / ((long) numBuckets * HOT_KEY_DIVISOR));
+
+        List<Map.Entry<K, Long>> byCount = new ArrayList<>(sampledCounts.entrySet());
+        byCount.sort(Map.Entry.<K, Long>comparingByValue().reversed());
+        int hot = 0;
+        while (hot < byCount.size() && hot < MAX_PINNED_KEYS && byCount.get(hot).getValue() >= threshold) hot++;
+
+        int numSlots = numBuckets * SLOTS_PER_BUCKET;
+        long[] slotLoads = new long[numSlots];
+        for (Map.Entry<K, Long> entry : byCount.subList(hot, byCount.size())) {
+            slotLoads[fallback.partition(entry.getKey(), numSlots)] += entry.getValue();
+        }
+
+        // items 0..hot-1 are pinned keys, the rest are slots
+        List<Integer> items = new ArrayList<>(hot + numSlots);
+        for (int i = 0; i < hot + numSlots; i++) items.add(i);
+        int hotKeys = hot;
+        items.sort(Comparator.comparingLong((Integer i) ->
+                i < hotKeys ? byCount.get(i).getValue() : slotLoads[i - hotKeys]).reversed());
+
+        long[] loads = new long[numBuckets];
+        Map<K, Integer> pinned = new HashMap<>();
+        int[] slots = new int[numSlots];
+        for (int item : items) {
+            int lightest = 0;
+            for (int b = 1; b < numBuckets; b++) {
+                if (loads[b] < loads[lightest]) lightest = b;
+            }
+            if (item < hot) {
+                pinned.put(byCount.get(item).getKey(), lightest);
+                loads[lightest] += byCount.get(item).getValue();
+            } else {
+                slots[item - hot] = lightest;
+                loads[lightest] += slotLoads[item - hot];
+            }
+        }
+        return new SamplingPartitioner<>(fallback, pinned, slots);
+    }
+
+    public Map<K, Integer> pinned() {
+        return pinned;
+    }
+
+    public int[] slots() {
+        return slots.clone();
+    }
+
+    public int numBuckets() {
+        return slots.length / SLOTS_PER_BUCKET;
+    }
+
+    @Override
+    public int partition(K key, int numBuckets) {
+        // the table only describes the bucket count it was balanced for
+        if (numBuckets != numBuckets()) return fallback.partition(key, numBuckets);
+        Integer bucket = pinned.get(key);
+        if (bucket != null) return bucket;
+        return slots[fallback.partition(key, slots.length)];
+    }
+}
@@ -1,10 +1,43 @@
 package mp.logic;
 
+import mp.io.RecordReader;
+import mp.io.Serializer;
 import mp.model.KeyValue;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
-public interface WorkerLogic {
-    List<KeyValue> map(String content);
-    List<String> reduce(List<KeyValue> keyValues);
+public interface WorkerLogic<K extends Comparable<K>, V> {
+    List<KeyValue<K, V>> map(String content);
+    List<String> reduce(List<KeyValue<K, V>> keyValues);
+
+    // Runs on the map side for each bucket before it is written; by default records pass through unchanged.
+    default List<KeyValue<K, V>> combine(List<KeyValue<K, V>> keyValues) {
+        return keyValues;
+    }
+
+    // Reduces a partition read record by record; by default the records are collected and passed to reduce(List).
+    default List<String> reduce(RecordReader<K, V> records) throws IOException {
+        List<KeyValue<K, V>> keyValues = new ArrayList<>();
+        KeyValue<K, V> kv;
+        while ((kv = records.next()) != null) {
+            keyValues.add(kv);
+        }
+        return reduce(keyValues);
+    }
+
+    // Reduces a partition of a JobGraph stage that feeds later stages into the records they map, instead of into
+    // lines. Only logic whose reduce output has the types of its map output can feed another stage.
+    default List<KeyValue<K, V>> reduceRecords(RecordReader<K, V> records) throws IOException {
+        throw new UnsupportedOperationException(getClass().getName() + " cannot feed another stage");
+    }
+
+    // Decides the bucket of every emitted key; hashing spreads keys evenly but ignores how often each one occurs.
+    default Partitioner<K> partitioner() {
+        return Partitioner.hash();
+    }
+
+    Serializer<K> keySerializer();
+    Serializer<V> valueSerializer();
 }
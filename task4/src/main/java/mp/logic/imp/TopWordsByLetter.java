@@ -0,0 +1,103 @@
+package mp.logic.imp;
+
+import mp.io.RecordReader;
+import mp.io.Serializer;
+import mp.io.Serializers;
+import mp.logic.ChainedLogic;
+import mp.model.KeyValue;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+// A stage to run after WordCount: maps its (word, count) records and keeps the k most frequent words for every
+// initial letter, emitted as "letter word count" with the most frequent first.
+public class TopWordsByLetter implements ChainedLogic<String, Long, String, KeyValue<String, Long>>, Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_K = 3;
+    private static final Serializer<KeyValue<String, Long>> WORD_COUNTS =
+            Serializers.keyValue(Serializers.STRING, Serializers.LONG);
+    private static final Comparator<KeyValue<String, Long>> BY_COUNT =
+            Comparator.comparing(KeyValue<String, Long>::value).reversed().thenComparing(KeyValue::key);
+    private final int k;
+
+    public TopWordsByLetter() {
+        this(DEFAULT_K);
+    }
+
+    public TopWordsByLetter(int k) {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive: " + k);
+        this.k = k;
+    }
+
+    @Override
+    public List<KeyValue<String, KeyValue<String, Long>>> map(String word, Long count) {
+        if (word.isEmpty()) return List.of();
+        String letter = word.substring(0, word.offsetByCodePoints(0, 1)).toLowerCase(Locale.ROOT);
+        return List.of(new KeyValue<>(letter, new KeyValue<>(word, count)));
+    }
+
+    @Override
+    public List<String> reduce(List<KeyValue<String, KeyValue<String, Long>>> keyValues) {
+        List<String> lines = new ArrayList<>();
+        for (KeyValue<String, KeyValue<String, Long>> kv : top(keyValues)) {
+            lines.add(kv.key() + " " + kv.value().key() + " " + kv.value().value());
+        }
+        return lines;
+    }
+
+    @Override
+    public List<KeyValue<String, KeyValue<String, Long>>> reduceRecords(
+            RecordReader<String, KeyValue<String, Long>> records) throws IOException {
+        List<KeyValue<String, KeyValue<String, Long>>> keyValues = new ArrayList<>();
+        KeyValue<String, KeyValue<String, Long>> kv;
+        while ((kv = records.next()) != null) {
+            keyValues.add(kv);
+        }
+        return top(keyValues);
+    }
+
+    private List<KeyValue<String, KeyValue<String, Long>>> top(
+            List<KeyValue<String, KeyValue<String, Long>>> keyValues) {
+        Map<String, List<KeyValue<String, Long>>> byLetter = new TreeMap<>();
+        for (KeyValue<String, KeyValue<String, Long>> kv : keyValues) {
+            byLetter.computeIfAbsent(kv.key(), letter -> new ArrayList<>()).add(kv.value());
+        }
+
+        List<KeyValue<String, KeyValue<String, Long>>> top = new ArrayList<>();
+        byLetter.forEach((letter, counts) -> {
+            counts.sort(BY_COUNT);
+            for (KeyValue<String, Long> count : counts.subList(0, Math.min(k, counts.size()))) {
+                top.add(new KeyValue<>(letter, count));
+            }
+        });
+        return top;
+    }
+
+    @Override
+    public Serializer<String> inputKeySerializer() {
+        return Serializers.STRING;
+    }
+
+    @Override
+    public Serializer<Long> inputValueSerializer() {
+        return Serializers.LONG;
+    }
+
+    @Override
+    public Serializer<String> keySerializer() {
+        return Serializers.STRING;
+    }
+
+    @Override
+    public Serializer<KeyValue<String, Long>> valueSerializer() {
+        return WORD_COUNTS;
+    }
+}
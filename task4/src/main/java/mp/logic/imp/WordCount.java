@@ -1,48 +1,41 @@
 package mp.logic.imp;
 
-import mp.logic.WorkerLogic;
-import mp.model.KeyValue;
+import mp.io.Serializer;
+import mp.io.Serializers;
+import mp.logic.LongEmitter;
+import mp.logic.LongValuedLogic;
 
-import java.util.*;
+import java.util.Comparator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 
-public class WordCount implements WorkerLogic {
+public class WordCount implements LongValuedLogic<String> {
     private static final Logger logger = Logger.getLogger(WordCount.class.getName());
+    private static final ThreadLocal<WordTokenizer> tokenizer = ThreadLocal.withInitial(WordTokenizer::new);
 
     @Override
-    public List<KeyValue> map(String content) {
+    public void map(String content, LongEmitter<String> emitter) {
         logger.log(Level.FINE, "processing input text of {0} characters", content.length());
 
-        return Arrays.stream(content.trim().split("\\s+"))
-                .map(word -> word.replaceAll("[^\\p{L}\\p{N}]", ""))
-                .filter(word -> !word.isEmpty())
-                .map(word -> new KeyValue(word, "1"))
-                .collect(Collectors.toList());
+        tokenizer.get().tokenize(content, word -> emitter.emit(word, 1));
     }
 
     @Override
-    public List<String> reduce(List<KeyValue> keyValues) {
-        logger.log(Level.FINE, "reducing {0} key-value pairs", keyValues.size());
+    public long mergeValues(long left, long right) {
+        return left + right;
+    }
 
-        Map<String, List<String>> groups = new TreeMap<>((a, b) -> {
+    // Case-insensitive alphabetical order, with case-sensitive order between keys that differ only in case.
+    @Override
+    public Comparator<String> outputOrder() {
+        return (a, b) -> {
             int cmp = a.compareToIgnoreCase(b);
             return (cmp != 0) ? cmp : a.compareTo(b);
-        });
-
-        for (KeyValue kv : keyValues) {
-            groups.computeIfAbsent(kv.key(), k -> new ArrayList<>()).add(kv.value());
-        }
-
-        logger.log(Level.FINER, "grouped into {0} unique keys", groups.size());
+        };
+    }
 
-        List<String> result = new ArrayList<>();
-        for (var entry : groups.entrySet()) {
-            String key = entry.getKey();
-            int count = entry.getValue().size();
-            result.add(key + " " + count);
-        }
-        return result;
+    @Override
+    public Serializer<String> keySerializer() {
+        return Serializers.STRING;
     }
 }
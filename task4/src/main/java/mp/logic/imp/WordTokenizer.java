@@ -0,0 +1,59 @@
+package mp.logic.imp;
+
+import java.util.function.Consumer;
+
+// Splits text on ASCII whitespace and keeps only Unicode letter and number code points of each token,
+// matching split("\\s+") followed by replaceAll("[^\\p{L}\\p{N}]", "") without regex or intermediate strings.
+final class WordTokenizer {
+    private final StringBuilder scratch = new StringBuilder();
+
+    void tokenize(String text, Consumer<String> sink) {
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && isSpace(text.charAt(i))) i++;
+            if (i == length) return;
+
+            int start = i;
+            int kept = 0;
+            boolean dropped = false;
+            while (i < length && !isSpace(text.charAt(i))) {
+                int cp = text.codePointAt(i);
+                int width = Character.charCount(cp);
+                if (isWordCodePoint(cp)) {
+                    if (dropped) scratch.appendCodePoint(cp);
+                    kept += width;
+                } else if (!dropped) {
+                    dropped = true;
+                    scratch.setLength(0);
+                    scratch.append(text, start, i);
+                }
+                i += width;
+            }
+
+            if (kept == 0) continue;
+            sink.accept(dropped ? scratch.toString() : text.substring(start, i));
+        }
+    }
+
+    // The whitespace class of java.util.regex without UNICODE_CHARACTER_CLASS: [ \t\n\x0B\f\r].
+    private static boolean isSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static boolean isWordCodePoint(int cp) {
+        switch (Character.getType(cp)) {
+            case Character.UPPERCASE_LETTER:
+            case Character.LOWERCASE_LETTER:
+            case Character.TITLECASE_LETTER:
+            case Character.MODIFIER_LETTER:
+            case Character.OTHER_LETTER:
+            case Character.DECIMAL_DIGIT_NUMBER:
+            case Character.LETTER_NUMBER:
+            case Character.OTHER_NUMBER:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -1,4 +1,4 @@
 package mp.model;
 
-public record KeyValue(String key, String value) {
+public record KeyValue<K, V>(K key, V value) {
 }
@@ -0,0 +1,53 @@
+package mp.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ObjLongConsumer;
+
+// Hash table of primitive long values; one mutable cell per distinct key, no boxing per update.
+public final class LongTable<K> {
+    private final Map<K, long[]> cells = new HashMap<>();
+    private final LongBinaryOperator merge;
+
+    public LongTable(LongBinaryOperator merge) {
+        this.merge = merge;
+    }
+
+    public void add(K key, long value) {
+        long[] cell = cells.get(key);
+        if (cell == null) {
+            cells.put(key, new long[]{value});
+        } else {
+            cell[0] = merge.applyAsLong(cell[0], value);
+        }
+    }
+
+    public long get(K key) {
+        long[] cell = cells.get(key);
+        return cell == null ? 0 : cell[0];
+    }
+
+    public int size() {
+        return cells.size();
+    }
+
+    public boolean isEmpty() {
+        return cells.isEmpty();
+    }
+
+    public void forEach(ObjLongConsumer<K> action) {
+        for (var entry : cells.entrySet()) {
+            action.accept(entry.getKey(), entry.getValue()[0]);
+        }
+    }
+
+    public List<K> sortedKeys(Comparator<? super K> order) {
+        List<K> keys = new ArrayList<>(cells.keySet());
+        keys.sort(order);
+        return keys;
+    }
+}
@@ -0,0 +1,144 @@
+package mp.core;
+
+import mp.io.RecordReader;
+import mp.io.RecordWriter;
+import mp.io.Serializers;
+import mp.io.ShuffleFormat;
+import mp.model.KeyValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static mp.core.TestFiles.classPathOf;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BucketMergerTest {
+
+    private static final String SMALL_HEAP = "-Xmx16m";
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("merges sorted inputs into one sorted output")
+    void mergesSorted() throws IOException {
+        Path a = Files.write(tmp.resolve("a.txt"), List.of("apple\t1", "cherry\t2", "plum\t1"));
+        Path b = Files.write(tmp.resolve("b.txt"), List.of("banana\t3", "date\t1"));
+        Path empty = Files.write(tmp.resolve("c.txt"), List.of());
+        Path out = tmp.resolve("merged.txt");
+
+        long lines = BucketMerger.merge(List.of(a, b, empty), out, ShuffleFormat.TEXT, Serializers.STRING,
+                Serializers.STRING);
+
+        assertEquals(5, lines);
+        assertEquals(List.of("apple\t1", "banana\t3", "cherry\t2", "date\t1", "plum\t1"), Files.readAllLines(out));
+    }
+
+    @Test
+    @DisplayName("folds records with equal keys when a combiner is given")
+    void combinesEqualKeys() throws IOException {
+        Path a = Files.write(tmp.resolve("a.txt"), List.of("apple\t1", "cherry\t2", "plum\t1"));
+        Path b = Files.write(tmp.resolve("b.txt"), List.of("apple\t3", "plum\t4"));
+        Path out = tmp.resolve("merged.txt");
+
+        long lines = BucketMerger.merge(List.of(a, b), out, ShuffleFormat.TEXT, Serializers.STRING, Serializers.LONG,
+                Long::sum);
+
+        assertEquals(3, lines);
+        assertEquals(List.of("apple\t4", "cherry\t2", "plum\t5"), Files.readAllLines(out));
+    }
+
+    @Test
+    @DisplayName("merges more inputs than the fan-in limit in several passes")
+    void mergesBeyondFanIn() throws IOException {
+        int files = BucketMerger.MAX_FAN_IN * 3 + 5;
+        List<Path> inputs = new ArrayList<>();
+        for (int f = 0; f < files; f++) {
+            inputs.add(Files.write(tmp.resolve("in-" + f + ".txt"), List.of("k" + (f % 10) + "\t" + f)));
+        }
+        Path out = tmp.resolve("merged.txt");
+
+        assertEquals(files, BucketMerger.merge(inputs, out, ShuffleFormat.TEXT, Serializers.STRING, Serializers.STRING));
+
+        List<String> keys = Files.readAllLines(out).stream().map(line -> line.substring(0, line.indexOf('\t'))).toList();
+        assertEquals(files, keys.size());
+        assertEquals(keys.stream().sorted().toList(), keys);
+        try (var listing = Files.list(tmp)) {
+            assertEquals(files + 1, listing.count(), "intermediate files must be removed");
+        }
+    }
+
+    @Test
+    @DisplayName("merges a partition larger than the heap of the merging JVM")
+    void mergesPartitionLargerThanHeap() throws Exception {
+        int files = 4;
+        int linesPerFile = 400_000;
+        List<Path> inputs = new ArrayList<>();
+        for (int f = 0; f < files; f++) {
+            Path input = tmp.resolve("mr-input" + f + "-0.bin");
+            try (RecordWriter<String, String> writer =
+                         ShuffleFormat.BINARY.newWriter(input, Serializers.STRING, Serializers.STRING)) {
+                for (int i = 0; i < linesPerFile; i++) {
+                    writer.write(String.format("key%08d-%d", i, f), "payload-padding-to-make-the-partition-large");
+                }
+            }
+            inputs.add(input);
+        }
+        Path out = tmp.resolve("merged-0.bin");
+
+        long inputBytes = 0;
+        for (Path input : inputs) inputBytes += Files.size(input);
+        assertTrue(inputBytes > 16L * 1024 * 1024, "partition must exceed the child heap");
+
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                SMALL_HEAP,
+                "-cp", classPathOf(BucketMerger.class, BucketMergerTest.class),
+                BucketMergerTest.class.getName(),
+                ShuffleFormat.BINARY.name(),
+                out.toString()));
+        inputs.forEach(p -> command.add(p.toString()));
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(tmp.resolve("child.log").toFile())
+                .start();
+        assertTrue(process.waitFor(2, TimeUnit.MINUTES), "merge process timed out");
+        assertEquals(0, process.exitValue(), () -> readLog(tmp.resolve("child.log")));
+
+        long count = 0;
+        String previous = null;
+        try (RecordReader<String, String> reader =
+                     ShuffleFormat.BINARY.newReader(out, Serializers.STRING, Serializers.STRING)) {
+            KeyValue<String, String> kv;
+            while ((kv = reader.next()) != null) {
+                if (previous != null) assertTrue(previous.compareTo(kv.key()) <= 0, "output is not sorted");
+                previous = kv.key();
+                count++;
+            }
+        }
+        assertEquals((long) files * linesPerFile, count);
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) inputs.add(Path.of(args[i]));
+        BucketMerger.merge(inputs, Path.of(args[1]), ShuffleFormat.valueOf(args[0]), Serializers.STRING,
+                Serializers.STRING);
+    }
+
+    private static String readLog(Path log) {
+        try {
+            return Files.readString(log);
+        } catch (IOException e) {
+            return e.toString();
+        }
+    }
+}
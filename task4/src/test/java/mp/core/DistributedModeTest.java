@@ -0,0 +1,174 @@
+package mp.core;
+
+import mp.logic.LongEmitter;
+import mp.logic.WorkerLogic;
+import mp.logic.imp.TopWordsByLetter;
+import mp.logic.imp.WordCount;
+import mp.model.KeyValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static mp.core.TestFiles.classPathOf;
+import static mp.core.TestFiles.list;
+import static mp.core.TestFiles.readOutput;
+import static mp.core.TestFiles.writeWords;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistributedModeTest {
+
+    private static final int BUCKETS = 4;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("worker JVMs on loopback produce the same output as in-process workers")
+    void remoteWorkersMatchLocalRun() throws Exception {
+        Path input = writeInput();
+        // sampling also sends the pinned keys over the wire, which the remote workers must apply identically
+        JobConfig config = JobConfig.defaults().withSplitSize(4096).withPartitioning(Partitioning.SAMPLING);
+
+        new Coordinator(new WordCount(), input, tmp.resolve("local/buckets"), tmp.resolve("local/merged"),
+                tmp.resolve("local/out"), 2, BUCKETS, config).run();
+
+        Coordinator coordinator = new Coordinator(new WordCount(), input, tmp.resolve("remote/buckets"),
+                tmp.resolve("remote/merged"), tmp.resolve("remote/out"), 0, BUCKETS, config);
+        int port = coordinator.serve(0).port();
+
+        List<Process> workers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            workers.add(new ProcessBuilder(
+                    Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", classPathOf(RemoteWorker.class),
+                    RemoteWorker.class.getName(), "localhost", String.valueOf(port), "2")
+                    .redirectErrorStream(true)
+                    .redirectOutput(tmp.resolve("worker-" + i + ".log").toFile())
+                    .start());
+        }
+
+        coordinator.run();
+
+        for (int i = 0; i < workers.size(); i++) {
+            Process worker = workers.get(i);
+            assertTrue(worker.waitFor(1, TimeUnit.MINUTES), "worker process did not exit");
+            assertEquals(0, worker.exitValue(), Files.readString(tmp.resolve("worker-" + i + ".log")));
+        }
+        assertEquals(readOutput(tmp.resolve("local/out")), readOutput(tmp.resolve("remote/out")));
+    }
+
+    @Test
+    @DisplayName("tasks held by a worker that disconnects are handed to another worker")
+    void reassignsTasksOfLostWorker() throws Exception {
+        Path input = writeInput();
+        Coordinator coordinator = new Coordinator(new WordCount(), input, tmp.resolve("buckets"),
+                tmp.resolve("merged"), tmp.resolve("out"), 0, BUCKETS, JobConfig.defaults());
+        int port = coordinator.serve(0).port();
+
+        try (RemoteCoordinator doomed = RemoteCoordinator.connect("localhost", port)) {
+            assertInstanceOf(MapTask.class, doomed.takeTask());
+        }
+
+        Thread survivor = new Thread(() -> {
+            try {
+                RemoteWorker.run("localhost", port, 1);
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        survivor.start();
+        coordinator.run();
+        survivor.join(TimeUnit.MINUTES.toMillis(1));
+
+        assertFalse(survivor.isAlive());
+        assertFalse(readOutput(tmp.resolve("out")).isEmpty());
+        assertEquals(BUCKETS, list(tmp.resolve("out")).size());
+    }
+
+    @Test
+    @Timeout(120)
+    @DisplayName("a task committed by a worker lost before reporting it done is run again")
+    void rerunsTaskCommittedByLostWorker() throws Exception {
+        Path input = writeInput();
+        new Coordinator(new WordCount(), input, tmp.resolve("local/buckets"), tmp.resolve("local/merged"),
+                tmp.resolve("local/out"), 2, BUCKETS, JobConfig.defaults()).run();
+
+        Coordinator coordinator = new Coordinator(new WordCount(), input, tmp.resolve("remote/buckets"),
+                tmp.resolve("remote/merged"), tmp.resolve("remote/out"), 0, BUCKETS, JobConfig.defaults());
+        int port = coordinator.serve(0).port();
+
+        try (RemoteCoordinator doomed = RemoteCoordinator.connect("localhost", port)) {
+            Task task = doomed.takeTask();
+            assertInstanceOf(MapTask.class, task);
+            assertTrue(doomed.tryCommit(task, new TaskCounters()));
+        }
+
+        Thread survivor = new Thread(() -> {
+            try {
+                RemoteWorker.run("localhost", port, 1);
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        survivor.start();
+        coordinator.run();
+        survivor.join(TimeUnit.MINUTES.toMillis(1));
+
+        assertFalse(survivor.isAlive());
+        assertEquals(readOutput(tmp.resolve("local/out")), readOutput(tmp.resolve("remote/out")));
+    }
+
+    @Test
+    @DisplayName("remote workers get configured logic with its configuration")
+    void sendsConfiguredLogic() throws Exception {
+        Coordinator coordinator = new Coordinator(new TopWordsByLetter(1), writeInput(), tmp.resolve("buckets"),
+                tmp.resolve("merged"), tmp.resolve("out"), 0, BUCKETS, JobConfig.defaults());
+        try (CoordinatorServer server = coordinator.serve(0);
+             RemoteCoordinator remote = RemoteCoordinator.connect("localhost", server.port())) {
+            @SuppressWarnings("unchecked")
+            WorkerLogic<String, KeyValue<String, Long>> logic =
+                    (WorkerLogic<String, KeyValue<String, Long>>) remote.getLogic();
+            assertInstanceOf(TopWordsByLetter.class, logic);
+            List<KeyValue<String, KeyValue<String, Long>>> counts = List.of(
+                    new KeyValue<>("a", new KeyValue<>("alpha", 3L)), new KeyValue<>("a", new KeyValue<>("apple", 5L)));
+            assertEquals(List.of("a apple 5"), logic.reduce(counts));
+        }
+    }
+
+    @Test
+    @DisplayName("logic workers cannot rebuild is rejected when the coordinator starts serving")
+    void rejectsLogicWorkersCannotBuild() throws Exception {
+        Coordinator coordinator = new Coordinator(new Configured(2), writeInput(), tmp.resolve("buckets"),
+                tmp.resolve("merged"), tmp.resolve("out"), 0, BUCKETS, JobConfig.defaults());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> coordinator.serve(0));
+        assertTrue(e.getMessage().contains(Configured.class.getName()), e.getMessage());
+    }
+
+    // Neither Serializable nor built by a public no-arg constructor.
+    private static final class Configured extends WordCount {
+        private final int minLength;
+
+        Configured(int minLength) {
+            this.minLength = minLength;
+        }
+
+        @Override
+        public void map(String content, LongEmitter<String> emitter) {
+            super.map(content, (word, count) -> {
+                if (word.length() >= minLength) emitter.emit(word, count);
+            });
+        }
+    }
+
+    private Path writeInput() throws IOException {
+        return writeWords(tmp.resolve("input"), 3, 2000);
+    }
+}
@@ -0,0 +1,85 @@
+package mp.core;
+
+import mp.logic.imp.WordCount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static mp.core.TestFiles.readOutput;
+import static mp.core.TestFiles.writeWords;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IncrementalRunTest {
+
+    private static final int BUCKETS = 16;
+    private static final JobConfig CONFIG = JobConfig.defaults().withSplitSize(4096).withIncremental(true);
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("a rerun only maps changed inputs and matches a run from scratch")
+    void remapsOnlyChangedInputs() throws Exception {
+        Path input = writeInput();
+        assertTrue(run(input).getMap().getTasks() > 3, "the first run maps every split");
+
+        Files.write(input.resolve("part-1.txt"), List.of("alpha omega", "omega"), StandardOpenOption.APPEND);
+        JobMetrics changed = run(input);
+        assertEquals(splits(input.resolve("part-1.txt")), changed.getMap().getTasks());
+        assertEquals(fromScratch(input, "scratch-1"), readOutput(tmp.resolve("out")));
+
+        Files.delete(input.resolve("part-2.txt"));
+        JobMetrics removed = run(input);
+        assertEquals(0, removed.getMap().getTasks());
+        assertEquals(fromScratch(input, "scratch-2"), readOutput(tmp.resolve("out")));
+    }
+
+    @Test
+    @DisplayName("an unchanged corpus does no work and a small change only touches its buckets")
+    void reducesOnlyAffectedBuckets() throws Exception {
+        Path input = writeInput();
+        Files.write(input.resolve("small.txt"), List.of("alpha"));
+        run(input);
+
+        JobMetrics unchanged = run(input);
+        assertEquals(0, unchanged.getMap().getTasks());
+        assertEquals(0, unchanged.getReduce().getTasks());
+
+        // touching a file without changing it is settled by its checksum
+        Files.setLastModifiedTime(input.resolve("part-0.txt"), FileTime.fromMillis(System.currentTimeMillis() + 5000));
+        Files.write(input.resolve("small.txt"), List.of("zeta"));
+        JobMetrics small = run(input);
+        assertEquals(1, small.getMap().getTasks());
+        assertTrue(small.getReduce().getTasks() <= 2, "only the buckets of alpha and zeta are reduced again");
+        assertEquals(fromScratch(input, "scratch"), readOutput(tmp.resolve("out")));
+    }
+
+    private JobMetrics run(Path input) throws IOException {
+        Coordinator coordinator = new Coordinator(new WordCount(), input, tmp.resolve("buckets"),
+                tmp.resolve("merged"), tmp.resolve("out"), 2, BUCKETS, CONFIG);
+        coordinator.run();
+        return coordinator.getMetrics();
+    }
+
+    private List<String> fromScratch(Path input, String dir) throws IOException {
+        Path root = tmp.resolve(dir);
+        new Coordinator(new WordCount(), input, root.resolve("buckets"), root.resolve("merged"), root.resolve("out"),
+                2, BUCKETS, CONFIG.withIncremental(false)).run();
+        return readOutput(root.resolve("out"));
+    }
+
+    private static long splits(Path file) throws IOException {
+        return (Files.size(file) + CONFIG.splitSize() - 1) / CONFIG.splitSize();
+    }
+
+    private Path writeInput() throws IOException {
+        return writeWords(tmp.resolve("input"), 3, 1000);
+    }
+}
@@ -0,0 +1,138 @@
+package mp.core;
+
+import mp.io.RecordReader;
+import mp.io.Serializer;
+import mp.io.Serializers;
+import mp.io.ShuffleFormat;
+import mp.logic.WorkerLogic;
+import mp.logic.imp.TopWordsByLetter;
+import mp.logic.imp.WordCount;
+import mp.model.KeyValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static mp.core.TestFiles.readOutput;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JobGraphTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("a second stage maps the first stage's output as if it had read the text files")
+    void chainsStages() throws IOException, InterruptedException {
+        Path input = writeInput("input", "apple avocado apple banana", "apple berry banana cherry", "avocado");
+        JobGraph graph = new JobGraph(tmp.resolve("graph"), 2, JobConfig.defaults());
+        JobGraph.Stage count = graph.source("count", new WordCount(), 3, input);
+        JobGraph.Stage top = graph.stage("top", new TopWordsByLetter(2), 1, count);
+        graph.run();
+
+        assertEquals(List.of("a apple 3", "a avocado 2", "b banana 2", "b berry 1", "c cherry 1"),
+                readOutput(top.outDir()));
+        try (Stream<Path> files = Files.list(count.outDir())) {
+            assertTrue(files.allMatch(ShuffleFiles::isStageOutput), "intermediate stages write no text");
+        }
+    }
+
+    @Test
+    @DisplayName("a stage feeding others hands them its reduced records with their own types")
+    void handsOnTypedRecords() throws IOException, InterruptedException {
+        Path input = writeInput("input", "apple avocado apple", "banana");
+        JobGraph graph = new JobGraph(tmp.resolve("graph"), 2, JobConfig.defaults());
+        JobGraph.Stage count = graph.source("count", new WordCount(), 1, input);
+        graph.stage("top", new TopWordsByLetter(), 1, count);
+        graph.run();
+
+        List<KeyValue<String, Long>> records = new ArrayList<>();
+        try (RecordReader<String, Long> reader = ShuffleFormat.BINARY.newReader(
+                ShuffleFiles.stageOutputFile(count.outDir(), 0), Serializers.STRING, Serializers.LONG)) {
+            KeyValue<String, Long> kv;
+            while ((kv = reader.next()) != null) records.add(kv);
+        }
+        assertEquals(List.of(new KeyValue<>("apple", 2L), new KeyValue<>("avocado", 1L), new KeyValue<>("banana", 1L)),
+                records);
+    }
+
+    @Test
+    @DisplayName("a stage is rejected when its input types are not the records of the stages it reads")
+    void rejectsMismatchedStages() throws IOException {
+        Path input = writeInput("input", "apple");
+        JobGraph graph = new JobGraph(tmp.resolve("graph"), 1, JobConfig.defaults());
+        JobGraph.Stage count = graph.source("count", new WordCount(), 1, input);
+        JobGraph.Stage top = graph.stage("top", new TopWordsByLetter(), 1, count);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> graph.stage("again", new TopWordsByLetter(), 1, top));
+        assertTrue(e.getMessage().contains("again"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> graph.source("text", new TopWordsByLetter(), 1, input));
+    }
+
+    @Test
+    @DisplayName("independent stages both feed a stage that reads their outputs together")
+    void joinsStages() throws IOException, InterruptedException {
+        Path left = writeInput("left", "apple apple avocado", "banana");
+        Path right = writeInput("right", "apple cherry cherry", "blueberry blueberry blueberry");
+        JobGraph graph = new JobGraph(tmp.resolve("graph"), 3, JobConfig.defaults());
+        JobGraph.Stage leftCount = graph.source("left", new WordCount(), 2, left);
+        JobGraph.Stage rightCount = graph.source("right", new WordCount(), 2, right);
+        JobGraph.Stage top = graph.stage("top", new TopWordsByLetter(1), 2, leftCount, rightCount);
+        graph.run();
+
+        List<String> result = readOutput(top.outDir());
+        result.sort(null);
+        assertEquals(List.of("a apple 2", "b blueberry 3", "c cherry 2"), result);
+    }
+
+    @Test
+    @DisplayName("a failing stage fails the job and the stages after it never start")
+    void stopsAfterFailure() throws IOException {
+        Path input = writeInput("input", "one two three");
+        JobGraph graph = new JobGraph(tmp.resolve("graph"), 2, JobConfig.defaults().withMaxAttempts(1));
+        JobGraph.Stage broken = graph.source("broken", new Failing(), 1, input);
+        JobGraph.Stage after = graph.stage("after", new TopWordsByLetter(), 1, broken);
+
+        IOException e = assertThrows(IOException.class, graph::run);
+        assertTrue(e.getMessage().contains("broken"), e.getMessage());
+        assertFalse(Files.exists(after.outDir()));
+        assertThrows(IllegalArgumentException.class, () -> graph.source("broken", new WordCount(), 1, input));
+    }
+
+    private Path writeInput(String dir, String... lines) throws IOException {
+        Path input = Files.createDirectories(tmp.resolve(dir));
+        Files.write(input.resolve("part.txt"), List.of(lines));
+        return input;
+    }
+
+    private static final class Failing implements WorkerLogic<String, Long> {
+        private final WordCount delegate = new WordCount();
+
+        @Override
+        public List<KeyValue<String, Long>> map(String content) {
+            throw new IllegalStateException("map failed on purpose");
+        }
+
+        @Override
+        public List<String> reduce(List<KeyValue<String, Long>> keyValues) {
+            return delegate.reduce(keyValues);
+        }
+
+        @Override
+        public Serializer<String> keySerializer() {
+            return delegate.keySerializer();
+        }
+
+        @Override
+        public Serializer<Long> valueSerializer() {
+            return delegate.valueSerializer();
+        }
+    }
+}
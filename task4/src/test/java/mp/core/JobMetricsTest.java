@@ -0,0 +1,89 @@
+package mp.core;
+
+import mp.logic.imp.WordCount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JobMetricsTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("a finished job reports per-phase counters and writes a summary next to the output")
+    void writesJobSummary() throws Exception {
+        Path input = Files.createDirectories(tmp.resolve("input"));
+        Files.write(input.resolve("a.txt"), List.of("one two three", "two three", "three"));
+        Files.write(input.resolve("b.txt"), List.of("four four four four"));
+
+        Coordinator coordinator = new Coordinator(new WordCount(), input, tmp.resolve("buckets"),
+                tmp.resolve("merged"), tmp.resolve("out"), 2, 3);
+        coordinator.run();
+
+        JobMetrics metrics = coordinator.getMetrics();
+        assertEquals(2, metrics.getMap().getTasks());
+        assertEquals(4, metrics.getMap().getRecordsIn());
+        assertEquals(4, metrics.getMap().getRecordsOut(), "one record per distinct word and map");
+        assertEquals(3, metrics.getMerge().getTasks());
+        assertEquals(3, metrics.getReduce().getTasks());
+        assertEquals(4, metrics.getReduce().getRecordsOut());
+        assertEquals(4, Arrays.stream(metrics.getPartitionRecords()).sum());
+        assertEquals(metrics.getMap().getBytesOut(), Arrays.stream(metrics.getPartitionBytes()).sum());
+        assertTrue(metrics.getPartitionSkew() >= 1.0);
+        assertNull(metrics.objectName(), "the MBean is unregistered once the job is over");
+
+        String summary = Files.readString(tmp.resolve("out.summary.json"));
+        assertTrue(summary.contains("\"status\": \"succeeded\""), summary);
+        assertTrue(summary.contains("\"map\": {\"tasks\": 2, \"recordsIn\": 4"), summary);
+        assertTrue(summary.contains("{\"bucket\": 2,"), summary);
+    }
+
+    @Test
+    @DisplayName("metrics are readable as open data over JMX")
+    void exposesMXBean() throws Exception {
+        JobMetrics metrics = new JobMetrics(2);
+        TaskCounters counters = new TaskCounters();
+        counters.recordsIn = 10;
+        counters.bucket(1, 3, 120);
+        metrics.taskCommitted(new MapTask(Path.of("in.txt"), 0, 100, "in", 2), counters);
+
+        metrics.register();
+        try {
+            CompositeData map = (CompositeData) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(metrics.objectName(), "Map");
+            assertEquals(1L, map.get("tasks"));
+            assertEquals(10L, map.get("recordsIn"));
+            assertArrayEquals(new long[]{0, 120}, (long[]) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(metrics.objectName(), "PartitionBytes"));
+            assertEquals(2.0, (double) ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(metrics.objectName(), "PartitionSkew"));
+        } finally {
+            metrics.unregister();
+        }
+    }
+
+    @Test
+    @DisplayName("histogram percentiles stay within a quarter of the recorded value")
+    void histogramPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) histogram.record(ms * 1_000_000L);
+
+        assertEquals(100, histogram.count());
+        assertEquals(50, histogram.percentileMillis(0.50), 50 * 0.25);
+        assertEquals(99, histogram.percentileMillis(0.99), 99 * 0.25);
+        assertEquals(100, histogram.maxMillis());
+        for (long micros : new long[]{0, 3, 4, 7, 8, 1000, 123_456_789}) {
+            assertTrue(LatencyHistogram.upperBound(LatencyHistogram.index(micros)) >= micros);
+        }
+    }
+}
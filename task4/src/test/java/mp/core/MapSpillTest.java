@@ -0,0 +1,95 @@
+package mp.core;
+
+import mp.io.Serializer;
+import mp.logic.WorkerLogic;
+import mp.logic.imp.WordCount;
+import mp.model.KeyValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static mp.core.TestFiles.readOutput;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MapSpillTest {
+
+    private static final int BUCKETS = 3;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("a map task over its buffer limit spills sorted runs and produces the same output")
+    void spillsLongValuedMaps() throws IOException {
+        Path input = writeInput();
+        assertEquals(run(new WordCount(), input, "unbounded", JobConfig.defaults()),
+                run(new WordCount(), input, "spilled", JobConfig.defaults().withMapBufferRecords(64)));
+        assertEquals(List.of(), leftovers(tmp.resolve("spilled/buckets")));
+    }
+
+    @Test
+    @DisplayName("logic without primitive values spills its KeyValue buffers the same way")
+    void spillsRecordMaps() throws IOException {
+        Path input = writeInput();
+        assertEquals(run(new PlainWordCount(), input, "unbounded", JobConfig.defaults()),
+                run(new PlainWordCount(), input, "spilled", JobConfig.defaults().withMapBufferRecords(64)));
+        assertEquals(List.of(), leftovers(tmp.resolve("spilled/buckets")));
+    }
+
+    private List<String> run(WorkerLogic<?, ?> logic, Path input, String dir, JobConfig config) throws IOException {
+        Path root = tmp.resolve(dir);
+        new Coordinator(logic, input, root.resolve("buckets"), root.resolve("merged"), root.resolve("out"), 2,
+                BUCKETS, config).run();
+        return readOutput(root.resolve("out"));
+    }
+
+    private static List<Path> leftovers(Path bucketsDir) throws IOException {
+        try (Stream<Path> files = Files.list(bucketsDir)) {
+            return files.filter(p -> p.getFileName().toString().contains(".spill")).toList();
+        }
+    }
+
+    private Path writeInput() throws IOException {
+        Path input = Files.createDirectories(tmp.resolve("input"));
+        for (int f = 0; f < 2; f++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                lines.add("word" + (i % 500) + " other" + (i * 7 % 311) + " common");
+            }
+            Files.write(input.resolve("part-" + f + ".txt"), lines);
+        }
+        return input;
+    }
+
+    // Word count through the generic WorkerLogic path, which buffers KeyValue lists instead of long tables.
+    private static final class PlainWordCount implements WorkerLogic<String, Long> {
+        private final WordCount delegate = new WordCount();
+
+        @Override
+        public List<KeyValue<String, Long>> map(String content) {
+            return delegate.map(content);
+        }
+
+        @Override
+        public List<String> reduce(List<KeyValue<String, Long>> keyValues) {
+            return delegate.reduce(keyValues);
+        }
+
+        @Override
+        public Serializer<String> keySerializer() {
+            return delegate.keySerializer();
+        }
+
+        @Override
+        public Serializer<Long> valueSerializer() {
+            return delegate.valueSerializer();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package mp.core;
+
+import mp.logic.imp.WordCount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static mp.core.TestFiles.list;
+import static mp.core.TestFiles.readOutput;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryShuffleTest {
+
+    private static final int BUCKETS = 3;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("a job within its memory budget produces the same output without intermediate files")
+    void shufflesInMemory() throws IOException {
+        Path input = writeInput(4);
+        List<String> expected = run(input, "disk", JobConfig.defaults());
+
+        assertEquals(expected, run(input, "memory", JobConfig.defaults().withShuffleMemoryBytes(64L << 20)));
+        assertEquals(List.of(), list(tmp.resolve("memory/buckets")));
+        assertEquals(List.of(), list(tmp.resolve("memory/merged")));
+    }
+
+    @Test
+    @DisplayName("outputs beyond the budget fall back to disk and mix with the ones kept in memory")
+    void fallsBackToDisk() throws IOException {
+        Path input = writeInput(6);
+        List<String> expected = run(input, "disk", JobConfig.defaults());
+
+        // the smallest map output on disk, index included, leaves room for about one of them in memory
+        long budget = Long.MAX_VALUE;
+        for (Path file : list(tmp.resolve("disk/buckets"))) budget = Math.min(budget, Files.size(file));
+        JobConfig config = JobConfig.defaults().withShuffleMemoryBytes(budget);
+        assertEquals(expected, run(input, "mixed", config));
+        List<Path> mapOutputs = list(tmp.resolve("mixed/buckets"));
+        assertFalse(mapOutputs.isEmpty());
+        assertTrue(mapOutputs.size() < 6, "some map outputs stay in memory: " + mapOutputs);
+
+        assertEquals(expected, run(input, "none", JobConfig.defaults().withShuffleMemoryBytes(1)));
+        assertEquals(6, list(tmp.resolve("none/buckets")).size());
+        assertEquals(BUCKETS, list(tmp.resolve("none/merged")).size());
+    }
+
+    @Test
+    @DisplayName("memory held by consumed outputs goes back to the budget for the splits that follow")
+    void reusesConsumedMemory() throws IOException {
+        int splits = 4 * Coordinator.INCREMENTAL_MERGE_FILES;
+        Path input = Files.createDirectories(tmp.resolve("input"));
+        for (int f = 0; f < splits; f++) {
+            // words of their own, so merging outputs does not shrink them and merged runs go to disk
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 500; i++) lines.add("file" + f + "word" + i + " common");
+            Files.write(input.resolve("part-" + f + ".txt"), lines);
+        }
+        List<String> expected = run(input, "disk", JobConfig.defaults());
+
+        // room for two map outputs at a time, so without returning memory all but two would go to disk
+        long largest = 0;
+        for (Path file : list(tmp.resolve("disk/buckets"))) largest = Math.max(largest, Files.size(file));
+        assertEquals(expected, run(input, "reused", JobConfig.defaults().withShuffleMemoryBytes(2 * largest)));
+        int inMemory = splits - list(tmp.resolve("reused/buckets")).size();
+        assertTrue(inMemory > 2 * 2, inMemory + " of " + splits + " map outputs stayed in memory");
+    }
+
+    private List<String> run(Path input, String dir, JobConfig config) throws IOException {
+        Path root = tmp.resolve(dir);
+        new Coordinator(new WordCount(), input, root.resolve("buckets"), root.resolve("merged"), root.resolve("out"),
+                2, BUCKETS, config).run();
+        return readOutput(root.resolve("out"));
+    }
+
+    private Path writeInput(int count) throws IOException {
+        Path input = Files.createDirectories(tmp.resolve("input"));
+        for (int f = 0; f < count; f++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                lines.add("word" + (i * (f + 1) % 700) + " other" + (i % 97) + " common");
+            }
+            Files.write(input.resolve("part-" + f + ".txt"), lines);
+        }
+        return input;
+    }
+}
@@ -0,0 +1,47 @@
+package mp.core;
+
+import mp.logic.imp.WordCount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static mp.core.TestFiles.list;
+import static mp.core.TestFiles.readOutput;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelinedShuffleTest {
+
+    private static final int BUCKETS = 3;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("merges map outputs into runs before the last map and keeps the output unchanged")
+    void mergesRunsIncrementally() throws IOException {
+        Path input = Files.createDirectories(tmp.resolve("input"));
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 6000; i++) {
+            lines.add("word" + (i % 251) + " Word" + (i % 13) + " другое" + (i % 7));
+        }
+        Files.write(input.resolve("big.txt"), lines);
+        Files.write(input.resolve("small.txt"), List.of("word1 word2", "word3"));
+
+        new Coordinator(new WordCount(), input, tmp.resolve("whole/buckets"), tmp.resolve("whole/merged"),
+                tmp.resolve("whole/out"), 2, BUCKETS, JobConfig.defaults()).run();
+
+        JobConfig split = JobConfig.defaults().withSplitSize(2048);
+        new Coordinator(new WordCount(), input, tmp.resolve("split/buckets"), tmp.resolve("split/merged"),
+                tmp.resolve("split/out"), 3, BUCKETS, split).run();
+
+        assertTrue(list(tmp.resolve("split/merged")).stream().anyMatch(p -> p.getFileName().toString().startsWith("run-")),
+                "expected incremental runs");
+        assertEquals(readOutput(tmp.resolve("whole/out")), readOutput(tmp.resolve("split/out")));
+    }
+}
@@ -0,0 +1,123 @@
+package mp.core;
+
+import mp.logic.LongEmitter;
+import mp.logic.imp.WordCount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static mp.core.TestFiles.readOutput;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingJobTest {
+
+    private static final int BUCKETS = 4;
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("files dropped into the input directory are folded into the output of a running job")
+    void foldsNewFilesIntoOutput() throws Exception {
+        Path input = Files.createDirectories(tmp.resolve("input"));
+        Files.write(input.resolve("first.txt"), List.of("alpha beta", "beta gamma"));
+
+        StreamingJob job = new StreamingJob(new WordCount(), input, tmp.resolve("buckets"), tmp.resolve("merged"),
+                tmp.resolve("out"), 2, BUCKETS, JobConfig.defaults(), Duration.ofMillis(100));
+        Thread runner = new Thread(() -> {
+            try {
+                job.run();
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        runner.start();
+        try {
+            awaitTrue(() -> job.completedBatches() >= 1);
+            assertEquals(fromScratch(input, "scratch-1"), readOutput(tmp.resolve("out")));
+
+            Files.write(input.resolve("second.txt"), List.of("alpha delta", "delta delta"));
+            Files.write(input.resolve("third.txt"), List.of("epsilon"));
+            List<String> expected = fromScratch(input, "scratch-2");
+            awaitTrue(() -> outputEquals(expected, tmp.resolve("out")));
+        } finally {
+            job.close();
+            runner.join(TimeUnit.MINUTES.toMillis(1));
+        }
+        assertFalse(runner.isAlive());
+    }
+
+    @Test
+    @DisplayName("a failed micro-batch is retried without waiting for another input change")
+    void retriesFailedBatch() throws Exception {
+        Path input = Files.createDirectories(tmp.resolve("input"));
+        Files.write(input.resolve("first.txt"), List.of("alpha beta"));
+        AtomicBoolean failing = new AtomicBoolean();
+        WordCount flaky = new WordCount() {
+            @Override
+            public void map(String content, LongEmitter<String> emitter) {
+                if (failing.get()) throw new IllegalStateException("injected map failure");
+                super.map(content, emitter);
+            }
+        };
+
+        StreamingJob job = new StreamingJob(flaky, input, tmp.resolve("buckets"), tmp.resolve("merged"),
+                tmp.resolve("out"), 2, BUCKETS, JobConfig.defaults(), Duration.ofMillis(100));
+        Thread runner = new Thread(() -> {
+            try {
+                job.run();
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        runner.start();
+        try {
+            awaitTrue(() -> job.completedBatches() >= 1);
+            failing.set(true);
+            Files.write(input.resolve("second.txt"), List.of("beta gamma"));
+            awaitTrue(() -> job.completedBatches() >= 2);
+            failing.set(false);
+
+            // no file changes after the failure, so only a retry can bring the second file in
+            List<String> expected = fromScratch(input, "scratch");
+            awaitTrue(() -> outputEquals(expected, tmp.resolve("out")));
+        } finally {
+            job.close();
+            runner.join(TimeUnit.MINUTES.toMillis(1));
+        }
+        assertFalse(runner.isAlive());
+    }
+
+    private List<String> fromScratch(Path input, String dir) throws IOException {
+        Path root = tmp.resolve(dir);
+        new Coordinator(new WordCount(), input, root.resolve("buckets"), root.resolve("merged"), root.resolve("out"),
+                2, BUCKETS).run();
+        return readOutput(root.resolve("out"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met in time");
+            Thread.sleep(50);
+        }
+    }
+
+    private static boolean outputEquals(List<String> expected, Path outDir) {
+        try {
+            return expected.equals(readOutput(outDir));
+        } catch (IOException e) {
+            // the output directory may be mid-update while a batch runs
+            return false;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package mp.core;
+
+import mp.logic.LongEmitter;
+import mp.logic.imp.WordCount;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskTrackerTest {
+
+    private final List<Task> launched = new ArrayList<>();
+
+    @TempDir
+    Path tmp;
+
+    private TaskTracker tracker(JobConfig config) {
+        return new TaskTracker(config, launched::add);
+    }
+
+    @Test
+    @DisplayName("retries a failed attempt until max attempts are exhausted")
+    void retriesFailures() {
+        TaskTracker tracker = tracker(JobConfig.defaults().withMaxAttempts(2));
+        tracker.submit(new MergeTask(0, List.of(), Path.of("merged-0.bin")));
+
+        Task first = launched.get(0);
+        assertTrue(tracker.start(first));
+        assertTrue(tracker.onFailure(first));
+        assertEquals(2, launched.size());
+        assertEquals(1, launched.get(1).attempt());
+
+        Task second = launched.get(1);
+        assertTrue(tracker.start(second));
+        assertFalse(tracker.onFailure(second));
+    }
+
+    @Test
+    @DisplayName("first attempt to commit wins and later copies are skipped")
+    void firstCommitWins() {
+        TaskTracker tracker = tracker(JobConfig.defaults().withTaskTimeout(Duration.ofMillis(1)));
+        tracker.submit(new ReduceTask(3, null));
+
+        Task original = launched.get(0);
+        assertTrue(tracker.start(original));
+        sleep(20);
+        assertNull(tracker.checkStragglers(false));
+        assertEquals(2, launched.size());
+
+        Task copy = launched.get(1);
+        assertTrue(tracker.tryCommit(original));
+        assertFalse(tracker.start(copy));
+        assertEquals(0, tracker.inFlight());
+    }
+
+    @Test
+    @DisplayName("speculates on a straggler only once the queue has drained")
+    void speculatesOnStragglers() {
+        TaskTracker tracker = tracker(JobConfig.defaults());
+        tracker.submit(new MergeTask(0, List.of(), Path.of("merged-0.bin")));
+        tracker.submit(new MergeTask(1, List.of(), Path.of("merged-1.bin")));
+
+        Task fast = launched.get(0);
+        Task slow = launched.get(1);
+        tracker.start(slow);
+        tracker.start(fast);
+        assertTrue(tracker.tryCommit(fast));
+
+        sleep(TaskTracker.SPECULATION_MIN_NANOS / 1_000_000 + 50);
+        assertNull(tracker.checkStragglers(false));
+        assertEquals(2, launched.size());
+
+        assertNull(tracker.checkStragglers(true));
+        assertEquals(3, launched.size());
+        Task speculative = launched.get(2);
+        assertEquals(slow.name(), speculative.name());
+
+        assertNull(tracker.checkStragglers(true));
+        assertEquals(3, launched.size());
+
+        assertTrue(tracker.start(speculative));
+        assertTrue(tracker.tryCommit(speculative));
+        assertFalse(tracker.tryCommit(slow));
+    }
+
+    @Test
+    @DisplayName("reports a task that times out on its last attempt")
+    void reportsExhaustedTimeout() {
+        TaskTracker tracker = tracker(JobConfig.defaults().withMaxAttempts(1).withTaskTimeout(Duration.ofMillis(1)));
+        tracker.submit(new MergeTask(7, List.of(), Path.of("merged-7.bin")));
+        tracker.start(launched.get(0));
+        sleep(20);
+
+        assertEquals("merge-merged-7.bin", tracker.checkStragglers(true));
+    }
+
+    @Test
+    @DisplayName("interrupts a timed-out attempt and clears the interrupt once the attempt ends")
+    void interruptsTimedOutAttempt() {
+        TaskTracker tracker = tracker(JobConfig.defaults().withTaskTimeout(Duration.ofMillis(1)));
+        tracker.submit(new MergeTask(0, List.of(), Path.of("merged-0.bin")));
+
+        Task hung = launched.get(0);
+        assertTrue(tracker.start(hung, Thread.currentThread()));
+        sleep(20);
+        assertNull(tracker.checkStragglers(false));
+        assertTrue(Thread.currentThread().isInterrupted());
+        assertEquals(2, launched.size());
+
+        assertTrue(tracker.onFailure(hung));
+        assertFalse(Thread.interrupted());
+        assertEquals(2, launched.size());
+    }
+
+    @Test
+    @DisplayName("a relaunch that no worker picks up within the timeout counts as timed out")
+    void countsQueuedRelaunchAgainstTimeout() {
+        TaskTracker tracker = tracker(JobConfig.defaults().withMaxAttempts(3).withTaskTimeout(Duration.ofMillis(10)));
+        tracker.submit(new MergeTask(0, List.of(), Path.of("merged-0.bin")));
+        // every worker is stuck on the first attempt, so the relaunches stay queued
+        tracker.start(launched.get(0));
+
+        sleep(30);
+        assertNull(tracker.checkStragglers(false));
+        assertEquals(2, launched.size());
+
+        assertNull(tracker.checkStragglers(false));
+        assertEquals(2, launched.size());
+        sleep(30);
+        assertNull(tracker.checkStragglers(false));
+        assertEquals(3, launched.size());
+
+        sleep(30);
+        assertEquals("merge-merged-0.bin", tracker.checkStragglers(false));
+    }
+
+    @Test
+    @Timeout(60)
+    @DisplayName("a task hanging on every attempt fails the job when there are fewer workers than attempts")
+    void failsTaskHangingOnEveryAttempt() throws Exception {
+        Path input = Files.createDirectories(tmp.resolve("input"));
+        Files.write(input.resolve("words.txt"), List.of("alpha beta"));
+        CountDownLatch released = new CountDownLatch(1);
+        WordCount hanging = new WordCount() {
+            @Override
+            public void map(String content, LongEmitter<String> emitter) {
+                // ignores interrupts, so the attempt holds its worker until the test lets it go
+                boolean interrupted = false;
+                while (released.getCount() > 0) {
+                    try {
+                        released.await();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted) Thread.currentThread().interrupt();
+                super.map(content, emitter);
+            }
+        };
+
+        Coordinator coordinator = new Coordinator(hanging, input, tmp.resolve("buckets"), tmp.resolve("merged"),
+                tmp.resolve("out"), 2, 1,
+                JobConfig.defaults().withMaxAttempts(3).withTaskTimeout(Duration.ofMillis(300)));
+        Thread runner = new Thread(coordinator::run);
+        runner.start();
+        try {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (!coordinator.isFinished()) {
+                assertTrue(System.nanoTime() < deadline, "job did not fail in time");
+                Thread.sleep(50);
+            }
+        } finally {
+            released.countDown();
+            runner.join(TimeUnit.MINUTES.toMillis(1));
+        }
+        assertFalse(coordinator.succeeded());
+        assertInstanceOf(JobFailedException.class, coordinator.getFailure());
+        assertTrue(coordinator.getFailure().getMessage().contains("timed out after 3 attempts"),
+                coordinator.getFailure().getMessage());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
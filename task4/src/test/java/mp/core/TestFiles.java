@@ -0,0 +1,56 @@
+package mp.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Inputs and outputs shared by the job tests.
+final class TestFiles {
+    private static final String[] WORDS = {"alpha", "Beta", "gamma", "delta", "alpha", "epsilon", "Gamma", "zeta"};
+
+    private TestFiles() {
+    }
+
+    // Writes part-0.txt, part-1.txt, ... into dir: a few words that repeat and differ in case, and 97 numbered ones.
+    static Path writeWords(Path dir, int files, int linesPerFile) throws IOException {
+        Files.createDirectories(dir);
+        for (int f = 0; f < files; f++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < linesPerFile; i++) {
+                lines.add(WORDS[(i + f) % WORDS.length] + " " + WORDS[(i * 7) % WORDS.length] + " w" + (i % 97));
+            }
+            Files.write(dir.resolve("part-" + f + ".txt"), lines);
+        }
+        return dir;
+    }
+
+    // The lines of every file in outDir, file after file in name order.
+    static List<String> readOutput(Path outDir) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Path file : list(outDir)) lines.addAll(Files.readAllLines(file));
+        return lines;
+    }
+
+    // The entries of dir in name order, none if it does not exist.
+    static List<Path> list(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return List.of();
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    // A class path for a child JVM that can load the given classes.
+    static String classPathOf(Class<?>... types) throws URISyntaxException {
+        List<String> entries = new ArrayList<>();
+        for (Class<?> type : types) {
+            entries.add(Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+        }
+        return entries.stream().distinct().collect(Collectors.joining(File.pathSeparator));
+    }
+}
@@ -0,0 +1,80 @@
+package mp.io;
+
+import mp.model.KeyValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PartitionedFileTest {
+
+    private static final int PARTITIONS = 5;
+
+    @TempDir
+    Path tmp;
+
+    @ParameterizedTest
+    @EnumSource(ShuffleFormat.class)
+    @DisplayName("every partition is read back on its own, including ones never written")
+    void readsPartitionsIndependently(ShuffleFormat format) throws IOException {
+        Path file = tmp.resolve("mr-part" + format.extension());
+        List<List<KeyValue<String, Long>>> expected = new ArrayList<>();
+        PartitionedFile.Writer<String, Long> writer =
+                PartitionedFile.newWriter(file, format, PARTITIONS, Serializers.STRING, Serializers.LONG);
+        try (writer) {
+            for (int p = 0; p < PARTITIONS; p++) {
+                List<KeyValue<String, Long>> records = new ArrayList<>();
+                // partitions 1 and 3 are skipped and must come back empty
+                if (p % 2 == 0) {
+                    RecordWriter<String, Long> partition = writer.partition(p);
+                    for (int i = 0; i < 1000 * (p + 1); i++) {
+                        KeyValue<String, Long> kv = new KeyValue<>("ключ-" + p + "-" + i, (long) i);
+                        partition.write(kv);
+                        records.add(kv);
+                    }
+                }
+                expected.add(records);
+            }
+        }
+
+        long total = 0;
+        for (int p = PARTITIONS - 1; p >= 0; p--) {
+            List<KeyValue<String, Long>> records = new ArrayList<>();
+            try (PartitionedFile.Segment<String, Long> segment =
+                         PartitionedFile.openPartition(file, p, format, Serializers.STRING, Serializers.LONG)) {
+                KeyValue<String, Long> kv;
+                while ((kv = segment.next()) != null) records.add(kv);
+                assertEquals(writer.length(p), segment.length());
+                total += segment.length();
+            }
+            assertEquals(expected.get(p), records, "partition " + p);
+        }
+        assertTrue(total < Files.size(file), "the index follows the partitions");
+    }
+
+    @Test
+    @DisplayName("partitions must be written in ascending order and read within range")
+    void rejectsBadPartitions() throws IOException {
+        Path file = tmp.resolve("mr-bad.bin");
+        try (PartitionedFile.Writer<String, Long> writer =
+                     PartitionedFile.newWriter(file, ShuffleFormat.BINARY, 2, Serializers.STRING, Serializers.LONG)) {
+            writer.partition(1).write("b", 1L);
+            assertThrows(IllegalArgumentException.class, () -> writer.partition(0));
+        }
+
+        assertThrows(IOException.class, () -> PartitionedFile.openPartition(file, 2, ShuffleFormat.BINARY,
+                Serializers.STRING, Serializers.LONG));
+        Path plain = Files.write(tmp.resolve("plain.bin"), new byte[16]);
+        assertThrows(IOException.class, () -> PartitionedFile.openPartition(plain, 0, ShuffleFormat.BINARY,
+                Serializers.STRING, Serializers.LONG));
+    }
+}
@@ -0,0 +1,149 @@
+package mp.io;
+
+import mp.model.KeyValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShuffleFormatTest {
+
+    @TempDir
+    Path tmp;
+
+    @ParameterizedTest
+    @EnumSource(ShuffleFormat.class)
+    @DisplayName("records written by a format are read back unchanged")
+    void roundTrip(ShuffleFormat format) throws IOException {
+        List<KeyValue<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            records.add(new KeyValue<>("ключ-" + (i % 1000), String.valueOf(i)));
+        }
+        records.add(new KeyValue<>("", ""));
+        records.add(new KeyValue<>("large", "x".repeat(200_000)));
+
+        assertEquals(records, writeAndRead(format, records));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ShuffleFormat.class, names = {"BINARY", "BINARY_DEFLATE"})
+    @DisplayName("binary formats keep keys with tabs and line breaks intact")
+    void binaryKeepsSeparators(ShuffleFormat format) throws IOException {
+        List<KeyValue<String, String>> records = List.of(new KeyValue<>("a\tb", "1"), new KeyValue<>("line\nbreak", "2\t3"));
+        assertEquals(records, writeAndRead(format, records));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ShuffleFormat.class)
+    @DisplayName("empty files contain no records")
+    void emptyFile(ShuffleFormat format) throws IOException {
+        assertEquals(List.of(), writeAndRead(format, List.of()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ShuffleFormat.class, names = "BINARY_DEFLATE")
+    @DisplayName("block compression shrinks repetitive data")
+    void deflateShrinks(ShuffleFormat format) throws IOException {
+        Path plain = tmp.resolve("plain.bin");
+        Path deflated = tmp.resolve("deflated.bin");
+        try (RecordWriter<String, Long> a = ShuffleFormat.BINARY.newWriter(plain, Serializers.STRING, Serializers.LONG);
+             RecordWriter<String, Long> b = format.newWriter(deflated, Serializers.STRING, Serializers.LONG)) {
+            for (int i = 0; i < 100_000; i++) {
+                KeyValue<String, Long> kv = new KeyValue<>("word" + (i % 10), 1L);
+                a.write(kv);
+                b.write(kv);
+            }
+        }
+        assertTrue(Files.size(deflated) * 4 < Files.size(plain));
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = ShuffleFormat.class, names = {"BINARY", "BINARY_DEFLATE"})
+    @DisplayName("runs of equal keys are stored once per block and read back as one shared key")
+    void repeatedKeys(ShuffleFormat format) throws IOException {
+        List<KeyValue<String, Long>> records = new ArrayList<>();
+        for (int k = 0; k < 300; k++) {
+            String key = "повторяющийся-ключ-" + k;
+            // every tenth key is unique, so blocks mix runs with single records
+            for (int i = 0; i < (k % 10 == 0 ? 1 : 200 + k); i++) records.add(new KeyValue<>(key, (long) i));
+        }
+        records.add(new KeyValue<>("zz-large", 1L));
+        records.add(new KeyValue<>("zz-large", 2L));
+        List<KeyValue<String, Long>> read = writeAndRead(format, records, Serializers.LONG);
+        assertEquals(records, read);
+        int decoded = 1;
+        for (int i = 1; i < read.size(); i++) {
+            if (read.get(i).key() != read.get(i - 1).key()) decoded++;
+        }
+        // 301 distinct keys, plus one more decode for each run split across a block boundary
+        assertTrue(decoded < 310, "decoded " + decoded + " keys");
+
+        long keyBytes = records.stream().mapToLong(kv -> kv.key().getBytes(StandardCharsets.UTF_8).length).sum();
+        assertTrue(Files.size(tmp.resolve("records" + format.extension())) * 10 < keyBytes);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ShuffleFormat.class)
+    @DisplayName("long values round-trip without loss, including extremes")
+    void longValues(ShuffleFormat format) throws IOException {
+        List<KeyValue<String, Long>> records = List.of(new KeyValue<>("zero", 0L), new KeyValue<>("one", 1L),
+                new KeyValue<>("negative", -12345L), new KeyValue<>("max", Long.MAX_VALUE),
+                new KeyValue<>("min", Long.MIN_VALUE));
+        assertEquals(records, writeAndRead(format, records, Serializers.LONG));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ShuffleFormat.class)
+    @DisplayName("writeLong and nextLong store the same records as write and next")
+    void primitiveLongs(ShuffleFormat format) throws IOException {
+        List<KeyValue<String, Long>> records = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            records.add(new KeyValue<>("key-" + i / 7, i % 3 == 0 ? -i : (long) i * 1_000_000_007L));
+        }
+        records.add(new KeyValue<>("min", Long.MIN_VALUE));
+
+        Path file = tmp.resolve("longs" + format.extension());
+        try (RecordWriter<String, Long> writer = format.newWriter(file, Serializers.STRING, Serializers.LONG)) {
+            for (KeyValue<String, Long> kv : records) writer.writeLong(kv.key(), kv.value());
+        }
+        assertEquals(records, writeAndRead(format, records, Serializers.LONG));
+        assertArrayEquals(Files.readAllBytes(tmp.resolve("records" + format.extension())), Files.readAllBytes(file));
+
+        List<KeyValue<String, Long>> read = new ArrayList<>();
+        try (RecordReader<String, Long> reader = format.newReader(file, Serializers.STRING, Serializers.LONG)) {
+            while (reader.nextLong((key, value) -> read.add(new KeyValue<>(key, value)))) {
+                // every record is added by the action
+            }
+        }
+        assertEquals(records, read);
+    }
+
+    private List<KeyValue<String, String>> writeAndRead(ShuffleFormat format, List<KeyValue<String, String>> records)
+            throws IOException {
+        return writeAndRead(format, records, Serializers.STRING);
+    }
+
+    private <V> List<KeyValue<String, V>> writeAndRead(ShuffleFormat format, List<KeyValue<String, V>> records,
+                                                       Serializer<V> values) throws IOException {
+        Path file = tmp.resolve("records" + format.extension());
+        try (RecordWriter<String, V> writer = format.newWriter(file, Serializers.STRING, values)) {
+            for (KeyValue<String, V> kv : records) writer.write(kv);
+        }
+
+        List<KeyValue<String, V>> read = new ArrayList<>();
+        try (RecordReader<String, V> reader = format.newReader(file, Serializers.STRING, values)) {
+            KeyValue<String, V> kv;
+            while ((kv = reader.next()) != null) read.add(kv);
+        }
+        return read;
+    }
+}
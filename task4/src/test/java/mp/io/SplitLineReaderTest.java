@@ -0,0 +1,69 @@
+package mp.io;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SplitLineReaderTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    @DisplayName("every line is read by exactly one split, whatever the split size")
+    void splitsCoverEveryLineOnce() throws IOException {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            int words = random.nextInt(8);
+            for (int w = 0; w < words; w++) content.append(w == 0 ? "" : " ").append("слово").append(random.nextInt(50));
+            content.append(random.nextInt(5) == 0 ? "\r\n" : "\n");
+        }
+        content.append("last line without terminator");
+        Path file = Files.writeString(tmp.resolve("input.txt"), content);
+
+        List<String> expected = readAll(file);
+        long size = Files.size(file);
+        for (long splitSize : new long[]{1, 2, 3, 7, 64, 1000, size - 1, size, size + 1}) {
+            List<String> actual = new ArrayList<>();
+            for (long start = 0; start < size; start += splitSize) {
+                try (SplitLineReader reader = new SplitLineReader(file, start, splitSize)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) actual.add(line);
+                }
+            }
+            assertEquals(expected, actual, "split size " + splitSize);
+        }
+    }
+
+    @Test
+    @DisplayName("trailing newline does not produce an extra empty line")
+    void trailingNewline() throws IOException {
+        Path file = Files.writeString(tmp.resolve("input.txt"), "a\n\nb\n");
+        try (SplitLineReader reader = new SplitLineReader(file, 0, Long.MAX_VALUE)) {
+            assertEquals("a", reader.readLine());
+            assertEquals("", reader.readLine());
+            assertEquals("b", reader.readLine());
+            assertNull(reader.readLine());
+        }
+    }
+
+    private static List<String> readAll(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) lines.add(line);
+        }
+        return lines;
+    }
+}
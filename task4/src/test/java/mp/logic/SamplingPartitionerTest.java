@@ -0,0 +1,58 @@
+package mp.logic;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SamplingPartitionerTest {
+
+    private static final int BUCKETS = 8;
+
+    @Test
+    @DisplayName("spreads hot keys so the largest bucket is smaller than with hashing")
+    void balancesHotKeys() {
+        Map<String, Long> counts = new HashMap<>();
+        for (int rank = 1; rank <= 5000; rank++) {
+            counts.put("key" + rank, Math.max(1L, 100_000L / rank));
+        }
+        Partitioner<String> hash = Partitioner.hash();
+        SamplingPartitioner<String> sampling = SamplingPartitioner.balance(counts, BUCKETS, hash);
+
+        long hashMax = maxLoad(counts, hash);
+        long samplingMax = maxLoad(counts, sampling);
+        long mean = counts.values().stream().mapToLong(Long::longValue).sum() / BUCKETS;
+
+        assertFalse(sampling.pinned().isEmpty());
+        assertTrue(samplingMax < hashMax, samplingMax + " should be below " + hashMax);
+        // the hottest key alone is bigger than a mean bucket, so it bounds the best possible result
+        assertTrue(samplingMax <= Math.max(counts.get("key1"), mean) * 11 / 10, samplingMax + " vs mean " + mean);
+        assertTrue(sampling.pinned().size() < counts.size() / 10, "only hot keys are pinned");
+    }
+
+    @Test
+    @DisplayName("keys outside the sample are hashed into slots consistently")
+    void fallsBackForUnsampledKeys() {
+        Partitioner<String> hash = Partitioner.hash();
+        SamplingPartitioner<String> sampling = SamplingPartitioner.balance(Map.of("the", 1000L, "a", 900L), BUCKETS,
+                hash);
+
+        int[] slots = sampling.slots();
+        assertEquals(slots[hash.partition("unseen", slots.length)], sampling.partition("unseen", BUCKETS));
+        assertEquals(sampling.partition("unseen", BUCKETS), sampling.partition("unseen", BUCKETS));
+        assertNotEquals(sampling.partition("the", BUCKETS), sampling.partition("a", BUCKETS));
+        assertEquals(hash.partition("the", 3), sampling.partition("the", 3),
+                "a table balanced for another bucket count is ignored");
+    }
+
+    private static long maxLoad(Map<String, Long> counts, Partitioner<String> partitioner) {
+        long[] loads = new long[BUCKETS];
+        counts.forEach((key, count) -> loads[partitioner.partition(key, BUCKETS)] += count);
+        long max = 0;
+        for (long load : loads) max = Math.max(max, load);
+        return max;
+    }
+}
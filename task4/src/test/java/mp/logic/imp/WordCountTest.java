@@ -0,0 +1,77 @@
+package mp.logic.imp;
+
+import mp.io.RecordReader;
+import mp.io.RecordWriter;
+import mp.io.ShuffleFormat;
+import mp.io.Serializers;
+import mp.model.KeyValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordCountTest {
+
+    private WordCount wordCount;
+
+    @TempDir
+    Path tmp;
+
+    @BeforeEach
+    void setUp() {
+        wordCount = new WordCount();
+    }
+
+    @Test
+    @DisplayName("combine collapses repeated keys into one partial count")
+    void combineCollapsesKeys() {
+        List<KeyValue<String, Long>> combined = wordCount.combine(wordCount.map("the cat and the dog and the bird"));
+        assertEquals(5, combined.size());
+        assertTrue(combined.contains(new KeyValue<>("the", 3L)));
+        assertTrue(combined.contains(new KeyValue<>("and", 2L)));
+        assertTrue(combined.contains(new KeyValue<>("cat", 1L)));
+    }
+
+    @Test
+    @DisplayName("reduce over combined output equals reduce over raw output")
+    void reduceAfterCombineMatchesRaw() {
+        List<KeyValue<String, Long>> first = wordCount.map("Map map reduce, MAP!");
+        List<KeyValue<String, Long>> second = wordCount.map("reduce shuffle map");
+
+        List<KeyValue<String, Long>> raw = new ArrayList<>(first);
+        raw.addAll(second);
+
+        List<KeyValue<String, Long>> combined = new ArrayList<>(wordCount.combine(first));
+        combined.addAll(wordCount.combine(second));
+
+        assertEquals(wordCount.reduce(raw), wordCount.reduce(combined));
+        assertEquals(List.of("MAP 1", "Map 1", "map 2", "reduce 2", "shuffle 1"), wordCount.reduce(combined));
+    }
+
+    @Test
+    @DisplayName("streaming reduce over a partition file equals reduce over a list")
+    void streamingReduceMatchesListReduce() throws IOException {
+        List<KeyValue<String, Long>> records = new ArrayList<>(wordCount.map("b B a A b c C a b Ä ä z"));
+        Path partition = tmp.resolve("merged-0.bin");
+        try (RecordWriter<String, Long> writer =
+                     ShuffleFormat.BINARY.newWriter(partition, Serializers.STRING, Serializers.LONG)) {
+            for (KeyValue<String, Long> kv : records) writer.write(kv);
+        }
+
+        List<String> streamed;
+        try (RecordReader<String, Long> reader =
+                     ShuffleFormat.BINARY.newReader(partition, Serializers.STRING, Serializers.LONG)) {
+            streamed = wordCount.reduce(reader);
+        }
+
+        assertEquals(wordCount.reduce(records), streamed);
+        assertEquals(List.of("A 1", "a 2", "B 1", "b 3", "C 1", "c 1", "z 1", "Ä 1", "ä 1"), streamed);
+    }
+}
@@ -0,0 +1,55 @@
+package mp.logic.imp;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordTokenizerTest {
+
+    private final WordTokenizer tokenizer = new WordTokenizer();
+
+    @Test
+    @DisplayName("strips punctuation and splits on whitespace")
+    void stripsPunctuation() {
+        assertEquals(List.of("Hello", "world", "dont", "42", "ab"), tokens("  Hello, world!\tdon't\n42 ... a-b "));
+    }
+
+    @Test
+    @DisplayName("keeps Unicode letters and numbers outside the BMP")
+    void unicode() {
+        assertEquals(List.of("особенности", "Java", "𝔘𝔫𝔦", "Ⅻ½"), tokens("«особенности» Java: 𝔘𝔫𝔦! Ⅻ½"));
+    }
+
+    @Test
+    @DisplayName("matches the regex implementation on random text")
+    void matchesRegex() {
+        Random random = new Random(7);
+        String alphabet = "ab Zя ё\t\n\r\u000B\f,.!-'\"«»0९½Ⅻ  \u0001_𝔘\uD800";
+        for (int round = 0; round < 2_000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int i = 0; i < length; i++) text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            String input = text.toString();
+            assertEquals(regexTokens(input), tokens(input), () -> "input: " + input);
+        }
+    }
+
+    private List<String> tokens(String text) {
+        List<String> out = new ArrayList<>();
+        tokenizer.tokenize(text, out::add);
+        return out;
+    }
+
+    private static List<String> regexTokens(String text) {
+        return Arrays.stream(text.trim().split("\\s+"))
+                .map(word -> word.replaceAll("[^\\p{L}\\p{N}]", ""))
+                .filter(word -> !word.isEmpty())
+                .toList();
+    }
+}